@@ -0,0 +1,40 @@
+package com._4point.testing.matchers.aem;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+
+/**
+ * Images used by the benchmarks.
+ */
+/*package*/ final class BenchmarkImages {
+	/*package*/ static final int PAGE_WIDTH = 2550;		// A letter size page at 300 DPI
+	/*package*/ static final int PAGE_HEIGHT = 3300;
+
+	private BenchmarkImages() {
+	}
+
+	/**
+	 * A colourful letter size page, so that every channel of every pixel is exercised.  Each call returns a new image
+	 * with the same content.
+	 *
+	 * @param imageType
+	 * 	type of image (one of the BufferedImage.TYPE_ constants)
+	 * @return the page
+	 */
+	/*package*/ static BufferedImage page(int imageType) {
+		BufferedImage image = new BufferedImage(PAGE_WIDTH, PAGE_HEIGHT, imageType);
+		Graphics2D g = image.createGraphics();
+		try {
+			for (int band = 0; band < 10; band++) {
+				g.setColor(new Color(Color.HSBtoRGB(band / 10f, 0.8f, 0.9f)));
+				g.fillRect(band * PAGE_WIDTH / 10, 0, PAGE_WIDTH / 10, PAGE_HEIGHT);
+			}
+			g.setColor(Color.WHITE);
+			g.fillOval(PAGE_WIDTH / 4, PAGE_HEIGHT / 4, PAGE_WIDTH / 2, PAGE_HEIGHT / 2);
+		} finally {
+			g.dispose();
+		}
+		return image;
+	}
+}
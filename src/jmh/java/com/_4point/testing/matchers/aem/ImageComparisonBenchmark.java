@@ -0,0 +1,74 @@
+package com._4point.testing.matchers.aem;
+
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+
+import org.hamcrest.Matcher;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.github.romankh3.image.comparison.ImageComparison;
+import com.github.romankh3.image.comparison.model.ImageComparisonState;
+
+/**
+ * Compares a pair of matching letter size pages three ways:
+ * <ul>
+ * <li>rasterComparison - BufferedImageMatcher on TYPE_INT_RGB images, whose rows are compared with Arrays.mismatch</li>
+ * <li>scalarComparison - BufferedImageMatcher on TYPE_INT_BGR images, whose layout isn't recognised, so every pixel
+ * is read with getRGB and compared on its own</li>
+ * <li>imageComparison - romankh3's ImageComparison (which BufferedImageMatcher used to use), with the same allowance
+ * for differing pixels</li>
+ * </ul>
+ *
+ * Run it with mvn -Pjmh verify -Djmh.args="ImageComparisonBenchmark".
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ImageComparisonBenchmark {
+	private BufferedImage expected;
+	private BufferedImage actual;
+	private Matcher<BufferedImage> rasterMatcher;
+	private BufferedImage scalarActual;
+	private Matcher<BufferedImage> scalarMatcher;
+
+	@Setup
+	public void setUp() {
+		expected = BenchmarkImages.page(BufferedImage.TYPE_INT_RGB);
+		actual = BenchmarkImages.page(BufferedImage.TYPE_INT_RGB);
+		rasterMatcher = BufferedImageMatcher.isSameAs(expected);
+		scalarActual = BenchmarkImages.page(BufferedImage.TYPE_INT_BGR);
+		scalarMatcher = BufferedImageMatcher.isSameAs(BenchmarkImages.page(BufferedImage.TYPE_INT_BGR));
+		if (!rasterComparison() || !scalarComparison() || !imageComparison()) {
+			throw new IllegalStateException("The benchmark's images should match.");
+		}
+	}
+
+	@Benchmark
+	public boolean rasterComparison() {
+		return rasterMatcher.matches(actual);
+	}
+
+	@Benchmark
+	public boolean scalarComparison() {
+		return scalarMatcher.matches(scalarActual);
+	}
+
+	@Benchmark
+	public boolean imageComparison() {
+		return new ImageComparison(expected, actual).setAllowingPercentOfDifferentPixels(RasterComparator.Tolerance.DEFAULT.allowedPercentOfDifferentPixels())
+													.compareImages()
+													.getImageComparisonState() == ImageComparisonState.MATCH;
+	}
+}
@@ -0,0 +1,55 @@
+package com._4point.testing.matchers.aem;
+
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+
+import org.hamcrest.Matcher;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com._4point.testing.matchers.aem.BufferedImageMatcher.BufferedImageMatcherBuilder;
+
+/**
+ * Shows how comparing a pair of matching letter size pages scales with the number of threads used
+ * (see {@link BufferedImageMatcherBuilder#parallelComparison(int)}).  A parallelism of 0 is the sequential comparison.
+ *
+ * Run it with mvn -Pjmh verify -Djmh.args="ParallelComparison".  Parallelism levels above the number of cores just
+ * show the overhead of the extra threads.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParallelComparisonBenchmark {
+	@Param({"0", "1", "2", "4", "8"})
+	public int parallelism;
+
+	private Matcher<BufferedImage> matcher;
+	private BufferedImage actual;
+
+	@Setup
+	public void setUp() {
+		BufferedImageMatcherBuilder builder = parallelism == 0 ? BufferedImageMatcherBuilder.instance() : BufferedImageMatcherBuilder.instance().parallelComparison(parallelism);
+		matcher = builder.isSameAs(BenchmarkImages.page(BufferedImage.TYPE_INT_RGB));
+		actual = BenchmarkImages.page(BufferedImage.TYPE_INT_RGB);
+		if (!matcher.matches(actual)) {
+			throw new IllegalStateException("The benchmark's images should match.");
+		}
+	}
+
+	@Benchmark
+	public boolean compare() {
+		return matcher.matches(actual);
+	}
+}
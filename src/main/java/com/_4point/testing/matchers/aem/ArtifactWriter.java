@@ -0,0 +1,136 @@
+package com._4point.testing.matchers.aem;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Writes comparison artifacts (diff files and copies of the actual results) to disk.
+ *
+ * Artifacts can either be written synchronously or handed off to a shared, bounded pool of background threads.
+ * When the background writers fall behind, the calling thread writes the artifact itself, so the number of
+ * artifacts waiting to be written (and the memory they hold onto) stays bounded.  Pending artifacts are
+ * written before the JVM shuts down.
+ *
+ * Artifacts can optionally be gzip compressed, in which case ".gz" is appended to their filenames.
+ */
+/*package*/ class ArtifactWriter {
+	private static final int WRITER_THREADS = 2;
+	private static final int MAX_PENDING_ARTIFACTS = 16;
+	private static final long SHUTDOWN_TIMEOUT_MINUTES = 5;
+	private static final String COMPRESSED_SUFFIX = ".gz";
+
+	private final boolean asynchronous;
+	private final boolean compressed;
+	private final Queue<CompletableFuture<Void>> pendingWrites = new ConcurrentLinkedQueue<>();
+
+	/**
+	 * @param asynchronous
+	 * 	true if artifacts should be written by background threads
+	 * @param compressed
+	 * 	true if artifacts should be gzip compressed
+	 */
+	/*package*/ ArtifactWriter(boolean asynchronous, boolean compressed) {
+		this.asynchronous = asynchronous;
+		this.compressed = compressed;
+	}
+
+	@FunctionalInterface
+	/*package*/ interface Artifact {
+		void writeTo(OutputStream os) throws IOException;
+	}
+
+	/**
+	 * Writes an artifact.
+	 * 
+	 * @param file
+	 * 	where the artifact should be written
+	 * @param artifact
+	 * 	writes the artifact's contents
+	 * @return the location the artifact is written to (which differs from file if the artifact is compressed)
+	 * @throws IOException if the artifact is written synchronously and cannot be written
+	 */
+	/*package*/ Path write(Path file, Artifact artifact) throws IOException {
+		Path target = compressed ? file.resolveSibling(file.getFileName() + COMPRESSED_SUFFIX) : file;
+		if (!asynchronous) {
+			writeArtifact(target, artifact);
+			return target;
+		}
+		pendingWrites.removeIf(CompletableFuture::isDone);
+		pendingWrites.add(CompletableFuture.runAsync(()->{
+			try {
+				writeArtifact(target, artifact);
+			} catch (IOException e) {
+				throw new UncheckedIOException("Unable to write '" + target + "'.", e);
+			}
+		}, BackgroundWriters.EXECUTOR));
+		return target;
+	}
+
+	/**
+	 * Waits for any artifacts that are still being written in the background.
+	 * 
+	 * @throws IllegalStateException if any of those artifacts could not be written
+	 */
+	/*package*/ void flush() {
+		List<Throwable> failures = new ArrayList<>();
+		CompletableFuture<Void> pendingWrite;
+		while ((pendingWrite = pendingWrites.poll()) != null) {
+			try {
+				pendingWrite.join();
+			} catch (CompletionException e) {
+				failures.add(e.getCause());
+			}
+		}
+		if (!failures.isEmpty()) {
+			IllegalStateException ex = new IllegalStateException("Unable to write " + failures.size() + " comparison artifact(s).", failures.get(0));
+			failures.stream().skip(1).forEach(ex::addSuppressed);
+			throw ex;
+		}
+	}
+
+	private void writeArtifact(Path target, Artifact artifact) throws IOException {
+		try (OutputStream os = compressed ? new GZIPOutputStream(Files.newOutputStream(target)) : new BufferedOutputStream(Files.newOutputStream(target))) {
+			artifact.writeTo(os);
+		}
+	}
+
+	// Lazily started, so that nothing is started unless asynchronous writing is actually used.
+	private static class BackgroundWriters {
+		private static final ExecutorService EXECUTOR = createExecutor();
+
+		private static ExecutorService createExecutor() {
+			ThreadPoolExecutor executor = new ThreadPoolExecutor(WRITER_THREADS, WRITER_THREADS, 0, TimeUnit.MILLISECONDS, 
+																 new ArrayBlockingQueue<>(MAX_PENDING_ARTIFACTS), 
+																 r->{
+																	 Thread thread = new Thread(r, "PdfComparer-artifact-writer");
+																	 thread.setDaemon(true);
+																	 return thread;
+																 }, 
+																 (r, e)->r.run());	// When the writers are behind (or shut down), the caller writes the artifact.
+			Runtime.getRuntime().addShutdownHook(new Thread(()->{
+				executor.shutdown();
+				try {
+					executor.awaitTermination(SHUTDOWN_TIMEOUT_MINUTES, TimeUnit.MINUTES);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}, "PdfComparer-artifact-writer-shutdown"));
+			return executor;
+		}
+	}
+}
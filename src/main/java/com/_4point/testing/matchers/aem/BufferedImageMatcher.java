@@ -1,24 +1,32 @@
 package com._4point.testing.matchers.aem;
 
+import java.awt.Dimension;
+import java.awt.Shape;
 import java.awt.image.BufferedImage;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.UncheckedIOException;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.BiPredicate;
 import java.util.function.Consumer;
 import java.util.function.Function;
+import java.util.stream.IntStream;
 
 import javax.imageio.ImageIO;
 
 import org.hamcrest.Description;
-import org.hamcrest.FeatureMatcher;
 import org.hamcrest.Matcher;
 import org.hamcrest.TypeSafeDiagnosingMatcher;
 
-import com.github.romankh3.image.comparison.ImageComparison;
 import com.github.romankh3.image.comparison.ImageComparisonUtil;
-import com.github.romankh3.image.comparison.model.ImageComparisonResult;
 
 /**
  * Custom Hamcrest Matcher for comparing images.
@@ -26,14 +34,13 @@ import com.github.romankh3.image.comparison.model.ImageComparisonResult;
 public class BufferedImageMatcher extends TypeSafeDiagnosingMatcher<BufferedImage> {
 
 	private final BufferedImage expectedImage;
+	private final ImageComparator comparator;
 	private final Consumer<BufferedImage> resultImageWriter;
+	private final MismatchHandoff<BufferedImage> mismatchHandoff = new MismatchHandoff<>();
 	
-	private BufferedImageMatcher(BufferedImage expectedImage) {
-		this(expectedImage, null);
-	}
-
-	private BufferedImageMatcher(BufferedImage expectedImage, Consumer<BufferedImage> resultImageWriter) {
+	private BufferedImageMatcher(BufferedImage expectedImage, ImageComparator comparator, Consumer<BufferedImage> resultImageWriter) {
 		this.expectedImage = expectedImage;
+		this.comparator = comparator;
 		this.resultImageWriter = resultImageWriter;
 	}
 
@@ -45,22 +52,67 @@ public class BufferedImageMatcher extends TypeSafeDiagnosingMatcher<BufferedImag
 
 	@Override
 	protected boolean matchesSafely(BufferedImage actualImage, Description mismatchDescription) {
-		ImageComparisonResult result = new ImageComparison(expectedImage, actualImage)
-					.setAllowingPercentOfDifferentPixels(0.0001165)	// Create an allowance of a few pixels to allow for font differences.
-					.compareImages();
-		return switch(result.getImageComparisonState()) {
-			case MATCH -> true;
-			case MISMATCH -> processMismatch(result, mismatchDescription, "image does not match.");
-			case SIZE_MISMATCH -> processMismatch(result, mismatchDescription, "size does not match.");
-			};
+		String mismatch = mismatchHandoff.mismatchOf(actualImage, mismatchDescription, this::mismatchOf);
+		if (mismatch == null) {
+			return true;
+		}
+		mismatchDescription.appendText(mismatch);
+		return false;
 	}
-	
-	private boolean processMismatch(ImageComparisonResult result, Description mismatchDescription, String cause) {
-		mismatchDescription.appendText(cause);
+
+	// Compares an image to the expected image, returning a description of the mismatch (or null if they match).
+	private String mismatchOf(BufferedImage actualImage) {
+		Optional<String> mismatch = comparator.compare(expectedImage, actualImage);
+		if (mismatch.isEmpty()) {
+			return null;
+		}
+		// The result image is only needed if someone is going to look at it, so it is only built when the match fails.
 		if (resultImageWriter != null) {
-			resultImageWriter.accept(result.getResult());
+			resultImageWriter.accept(comparator.resultImage(expectedImage, actualImage));
 		}
-		return false;
+		return mismatch.get();
+	}
+
+	// Hamcrest matches an item and then, if it doesn't match, matches it again to describe the mismatch.  The mismatch
+	// found by a match is handed to the description that immediately follows it on the same thread (provided that it
+	// is for the same item), so that the comparison isn't repeated and its result image isn't built and written twice.
+	// Nothing else is remembered: every other match compares the item afresh.
+	private static class MismatchHandoff<T> {
+		private final ThreadLocal<Mismatch<T>> pending = new ThreadLocal<>();
+
+		private String mismatchOf(T actual, Description mismatchDescription, Function<T, String> comparison) {
+			Mismatch<T> previous = pending.get();
+			pending.remove();
+			boolean describing = !(mismatchDescription instanceof Description.NullDescription);
+			if (describing && previous != null && previous.actual() == actual) {
+				return previous.description();
+			}
+			String mismatch = comparison.apply(actual);
+			if (mismatch != null && !describing) {
+				pending.set(new Mismatch<>(actual, mismatch));
+			}
+			return mismatch;
+		}
+	}
+
+	private record Mismatch<T>(T actual, String description) {}
+
+	// Matches encoded images, describing mismatches using MismatchHandoff.
+	private abstract static class EncodedImageMatcher<T> extends TypeSafeDiagnosingMatcher<T> {
+		private final MismatchHandoff<T> mismatchHandoff = new MismatchHandoff<>();
+
+		@Override
+		protected final boolean matchesSafely(T actual, Description mismatchDescription) {
+			String mismatch = mismatchHandoff.mismatchOf(actual, mismatchDescription, this::mismatchOf);
+			if (mismatch == null) {
+				return true;
+			}
+			mismatchDescription.appendText(mismatch);
+			return false;
+		}
+
+		// Returns a description of the mismatch, or null if the image matches.
+		protected abstract String mismatchOf(T actual);
 	}
 	
 	/**
@@ -68,7 +120,7 @@ public class BufferedImageMatcher extends TypeSafeDiagnosingMatcher<BufferedImag
 	 * @return a matcher that compares another image to the expected image
 	 */
 	public static Matcher<BufferedImage> isSameAs(BufferedImage expected) {
-		return new BufferedImageMatcher(expected);
+		return BufferedImageMatcherBuilder.instance().isSameAs(expected);
 	}
 
 	/**
@@ -77,19 +129,13 @@ public class BufferedImageMatcher extends TypeSafeDiagnosingMatcher<BufferedImag
 	 * @return a matcher that compares another image to the expected image and calls the Consumer if they don't match 
 	 */
 	public static Matcher<BufferedImage> isSameAs(BufferedImage expected, Consumer<BufferedImage> resultImageConsumer) {
-		return new BufferedImageMatcher(expected, resultImageConsumer);
+		return BufferedImageMatcherBuilder.instance().isSameAs(expected, resultImageConsumer);
 	}
 	
-	private static Matcher<Path> createMatcher(Path expectedImagePath, Function<BufferedImage, Matcher<BufferedImage>> matchFn) {
-		BufferedImage expectedImage = ImageComparisonUtil.readImageFromResources(expectedImagePath.toString());
-		return new FeatureMatcher<Path, BufferedImage>(matchFn.apply(expectedImage), "", "") {
-
-			@Override
-			protected BufferedImage featureValueOf(Path actualImagePath) {
-				return ImageComparisonUtil.readImageFromResources(actualImagePath.toString());
-			}
-			
-		};
+	// Expected images are usually shared by many matchers, so they are decoded through a cache.  Actual images are not.
+	private static Matcher<Path> createMatcher(Path expectedImagePath, Function<BufferedImage, BufferedImageMatcher> matchFn) {
+		BufferedImage expectedImage = ExpectedImageCache.shared().imageFor(expectedImagePath);
+		return new DecodingMatcher<>(matchFn.apply(expectedImage), actualImagePath->ImageComparisonUtil.readImageFromResources(actualImagePath.toString()));
 	}
 
 	/**
@@ -97,7 +143,29 @@ public class BufferedImageMatcher extends TypeSafeDiagnosingMatcher<BufferedImag
 	 * @return a matcher that compares another image file to the expected image file
 	 */
 	public static Matcher<Path> isSameAs(Path expected) {
-		return createMatcher(expected, BufferedImageMatcher::isSameAs);
+		return BufferedImageMatcherBuilder.instance().isSameAs(expected);
+	}
+
+	/**
+	 * Statistics for the cache of expected images used by the Path based matchers.
+	 * 
+	 * @param hits
+	 * 	number of times an expected image was found in the cache
+	 * @param misses
+	 * 	number of times an expected image had to be decoded (because it was not in the cache, it had been modified
+	 *  or the memory it occupied had been reclaimed)
+	 */
+	public record CacheStatistics(long hits, long misses) {}
+
+	/**
+	 * Expected images read from files (or classpath resources) are decoded once and then shared by every matcher (on
+	 * every thread) until the file is modified.  The decoded images are softly referenced, so they are discarded if
+	 * memory runs short.
+	 * 
+	 * @return the statistics for the cache of expected images, accumulated since the JVM started
+	 */
+	public static CacheStatistics expectedImageCacheStatistics() {
+		return ExpectedImageCache.shared().statistics();
 	}
 
 	/**
@@ -106,20 +174,135 @@ public class BufferedImageMatcher extends TypeSafeDiagnosingMatcher<BufferedImag
 	 * @return a matcher that compares another image file to the expected image file and writes out the result if they don't match 
 	 */
 	public static Matcher<Path> isSameAs(Path expected, Path result) {
-		return createMatcher(expected, i->isSameAs(i, r->ImageComparisonUtil.saveImage(result.toFile(), r)));
+		return BufferedImageMatcherBuilder.instance().isSameAs(expected, result);
 	}
 
 	
-	private static Matcher<byte[]> createMatcher(byte[] expectedImageBytes, Function<BufferedImage, Matcher<BufferedImage>> matchFn) {
+	private static Matcher<byte[]> createMatcher(byte[] expectedImageBytes, Function<BufferedImage, BufferedImageMatcher> matchFn, boolean hasResultConsumer) {
 		BufferedImage expectedImage = bufferedImageFromByteArray(expectedImageBytes);
-		return new FeatureMatcher<byte[], BufferedImage>(matchFn.apply(expectedImage), "", "") {
+		return new ByteArrayMatcher(expectedImageBytes, expectedImage, matchFn.apply(expectedImage), hasResultConsumer);
+	}
+
+	// Matches encoded images by decoding them and comparing the decoded images.  Every match decodes the image afresh
+	// (a description of a mismatch reuses the mismatch that was just found, so it doesn't decode the image again).
+	private static class DecodingMatcher<T> extends EncodedImageMatcher<T> {
+		private final BufferedImageMatcher imageMatcher;
+		private final Function<T, BufferedImage> decoder;
+
+		private DecodingMatcher(BufferedImageMatcher imageMatcher, Function<T, BufferedImage> decoder) {
+			this.imageMatcher = imageMatcher;
+			this.decoder = decoder;
+		}
+
+		@Override
+		public void describeTo(Description description) {
+			description.appendText(" ").appendDescriptionOf(imageMatcher);
+		}
+
+		@Override
+		protected String mismatchOf(T actual) {
+			String mismatch = imageMatcher.mismatchOf(decoder.apply(actual));
+			return mismatch != null ? " " + mismatch : null;
+		}
+	}
+
+	// Avoids decoding the actual image when it can be matched without it.  Identical bytes always match, and if the
+	// image headers show that the sizes differ there is no need to decode the image (unless a result image is wanted).
+	private static class ByteArrayMatcher extends DecodingMatcher<byte[]> {
+		private final byte[] expectedBytes;
+		private final int expectedWidth;
+		private final int expectedHeight;
+		private final boolean hasResultConsumer;
 
-			@Override
-			protected BufferedImage featureValueOf(byte[] actual) {
-				return bufferedImageFromByteArray(actual);
+		private ByteArrayMatcher(byte[] expectedBytes, BufferedImage expectedImage, BufferedImageMatcher imageMatcher, boolean hasResultConsumer) {
+			super(imageMatcher, BufferedImageMatcher::bufferedImageFromByteArray);
+			this.expectedBytes = expectedBytes;
+			this.expectedWidth = expectedImage.getWidth();
+			this.expectedHeight = expectedImage.getHeight();
+			this.hasResultConsumer = hasResultConsumer;
+		}
+
+		@Override
+		protected String mismatchOf(byte[] actual) {
+			if (Arrays.equals(expectedBytes, actual)) {
+				return null;
+			}
+			if (!hasResultConsumer) {
+				Optional<Dimension> actualSize = EncodedImages.dimensionsOf(actual);
+				if (actualSize.isPresent() && (actualSize.get().width != expectedWidth || actualSize.get().height != expectedHeight)) {
+					return " size does not match.";
+				}
 			}
+			return super.mismatchOf(actual);
+		}
+	}
+
+	@FunctionalInterface
+	private interface BandReaderFactory<T> {
+		EncodedImages.BandReader open(T image) throws IOException;
+	}
+
+	// Compares two encoded images a band of rows at a time, so neither image is ever fully decoded unless a result image
+	// is wanted.  Comparison stops at the first band where the allowance for differing pixels is exceeded.
+	private static class StreamingMatcher<T> extends EncodedImageMatcher<T> {
+		private final T expected;
+		private final BandReaderFactory<T> readerFactory;
+		private final Function<T, BufferedImage> decoder;
+		private final BiPredicate<T, T> identical;
+		private final RasterComparator comparator;
+		private final int bandHeight;
+		private final Consumer<BufferedImage> resultImageWriter;
 
-		};
+		private StreamingMatcher(T expected, BandReaderFactory<T> readerFactory, Function<T, BufferedImage> decoder, BiPredicate<T, T> identical,
+								 RasterComparator comparator, int bandHeight, Consumer<BufferedImage> resultImageWriter) {
+			this.expected = expected;
+			this.readerFactory = readerFactory;
+			this.decoder = decoder;
+			this.identical = identical;
+			this.comparator = comparator;
+			this.bandHeight = bandHeight;
+			this.resultImageWriter = resultImageWriter;
+		}
+
+		@Override
+		public void describeTo(Description description) {
+			description.appendText(" should match exactly.");
+		}
+
+		@Override
+		protected String mismatchOf(T actual) {
+			if (identical.test(expected, actual)) {
+				return null;
+			}
+			String mismatch = compare(actual);
+			if (mismatch != null && resultImageWriter != null) {
+				resultImageWriter.accept(comparator.resultImage(decoder.apply(expected), decoder.apply(actual)));
+			}
+			return mismatch;
+		}
+
+		private String compare(T actual) {
+			try (EncodedImages.BandReader expectedReader = readerFactory.open(expected); EncodedImages.BandReader actualReader = readerFactory.open(actual)) {
+				int width = expectedReader.width();
+				int height = expectedReader.height();
+				if (width != actualReader.width() || height != actualReader.height()) {
+					return " size does not match.";
+				}
+				long allowedDifferentPixels = comparator.tolerance().allowedDifferentPixels((long) width * height);
+				ExclusionMask.Spans spans = comparator.spans(width, height);
+				long differentPixels = 0;
+				for (int firstRow = 0; firstRow < height; firstRow += bandHeight) {
+					int rows = Math.min(bandHeight, height - firstRow);
+					differentPixels += comparator.countDifferentPixels(expectedReader.read(firstRow, rows), actualReader.read(firstRow, rows), spans, firstRow, allowedDifferentPixels - differentPixels);
+					if (differentPixels > allowedDifferentPixels) {
+						return " image does not match.";
+					}
+				}
+				return null;
+			} catch (IOException e) {
+				throw new UncheckedIOException("Error while reading image", e);
+			}
+		}
 	}
 
 	/**
@@ -127,7 +310,7 @@ public class BufferedImageMatcher extends TypeSafeDiagnosingMatcher<BufferedImag
 	 * @return a matcher that compares another image to the expected image
 	 */
 	public static Matcher<byte[]> isSameAs(byte[] expected) {
-		return createMatcher(expected, BufferedImageMatcher::isSameAs);
+		return BufferedImageMatcherBuilder.instance().isSameAs(expected);
 	}
 
 	/**
@@ -136,7 +319,101 @@ public class BufferedImageMatcher extends TypeSafeDiagnosingMatcher<BufferedImag
 	 * @return a matcher that compares another image's bytes to the expected image's bytes and calls the Consumer if they don't match 
 	 */
 	public static Matcher<byte[]> isSameAs(byte[] expected, Consumer<byte[]> resultImageConsumer) {
-		return  createMatcher(expected, i->isSameAs(i, r->resultImageConsumer.accept(byteArrayFromBufferedImage(r))));
+		return BufferedImageMatcherBuilder.instance().isSameAs(expected, resultImageConsumer);
+	}
+
+	/**
+	 * Compares multi-frame images (such as multi-page TIFFs) frame by frame.  The frame numbers in a mismatch
+	 * description are zero-based.
+	 * 
+	 * @param expected the expected image
+	 * @return a matcher that compares each frame of another image to the corresponding frame of the expected image
+	 */
+	public static Matcher<byte[]> isSameFramesAs(byte[] expected) {
+		return BufferedImageMatcherBuilder.instance().isSameFramesAs(expected);
+	}
+
+	/**
+	 * Compares multi-frame image files (such as multi-page TIFFs) frame by frame.  The frame numbers in a mismatch
+	 * description are zero-based.
+	 * 
+	 * @param expected the location of the expected image
+	 * @return a matcher that compares each frame of another image file to the corresponding frame of the expected image file
+	 */
+	public static Matcher<Path> isSameFramesAs(Path expected) {
+		return BufferedImageMatcherBuilder.instance().isSameFramesAs(expected);
+	}
+
+	@FunctionalInterface
+	private interface FrameReaderFactory<T> {
+		EncodedImages.FrameReader open(T image) throws IOException;
+	}
+
+	// Compares two multi-frame encoded images one pair of frames at a time, so only one frame of each image is in memory
+	// (or, when a pool is provided, one frame of each image per thread).  Every frame is compared, so that all the
+	// differing frames can be reported.
+	private static class FrameMatcher<T> extends EncodedImageMatcher<T> {
+		private final T expected;
+		private final FrameReaderFactory<T> readerFactory;
+		private final BiPredicate<T, T> identical;
+		private final ImageComparator comparator;
+		private final ForkJoinPool pool;
+
+		private FrameMatcher(T expected, FrameReaderFactory<T> readerFactory, BiPredicate<T, T> identical, ImageComparator comparator, ForkJoinPool pool) {
+			this.expected = expected;
+			this.readerFactory = readerFactory;
+			this.identical = identical;
+			this.comparator = comparator;
+			this.pool = pool;
+		}
+
+		@Override
+		public void describeTo(Description description) {
+			description.appendText(" every frame should match exactly.");
+		}
+
+		@Override
+		protected String mismatchOf(T actual) {
+			return identical.test(expected, actual) ? null : compare(actual);
+		}
+
+		private String compare(T actual) {
+			int frameCount;
+			List<Integer> differingFrames = new ArrayList<>();
+			try (EncodedImages.FrameReader expectedReader = readerFactory.open(expected); EncodedImages.FrameReader actualReader = readerFactory.open(actual)) {
+				frameCount = expectedReader.frameCount();
+				int actualFrameCount = actualReader.frameCount();
+				if (frameCount != actualFrameCount) {
+					return " number of frames does not match (expected " + frameCount + " but was " + actualFrameCount + ").";
+				}
+				if (pool == null || frameCount < 2) {
+					for (int frameIndex = 0; frameIndex < frameCount; frameIndex++) {
+						if (comparator.compare(expectedReader.read(frameIndex), actualReader.read(frameIndex)).isPresent()) {
+							differingFrames.add(frameIndex);
+						}
+					}
+				}
+			} catch (IOException e) {
+				throw new UncheckedIOException("Error while reading image", e);
+			}
+			if (pool != null && frameCount >= 2) {
+				// ImageReaders can't be shared between threads, so each frame is read using its own readers.
+				differingFrames = pool.submit(()->IntStream.range(0, frameCount).parallel().filter(i->framesDiffer(actual, i)).boxed().toList()).join();
+			}
+			if (differingFrames.isEmpty()) {
+				return null;
+			}
+			return differingFrames.size() == 1 ? " frame " + differingFrames.get(0) + " does not match." 
+											   : " frames " + differingFrames + " do not match.";
+		}
+
+		private boolean framesDiffer(T actual, int frameIndex) {
+			try (EncodedImages.FrameReader expectedReader = readerFactory.open(expected); EncodedImages.FrameReader actualReader = readerFactory.open(actual)) {
+				return comparator.compare(expectedReader.read(frameIndex), actualReader.read(frameIndex)).isPresent();
+			} catch (IOException e) {
+				throw new UncheckedIOException("Error while reading image", e);
+			}
+		}
 	}
 
 	private static BufferedImage bufferedImageFromByteArray(byte[] ba) {
@@ -156,4 +433,361 @@ public class BufferedImageMatcher extends TypeSafeDiagnosingMatcher<BufferedImag
 		}
 	}
 
+	/**
+	 * Builder for BufferedImageMatchers that require more configuration than the static isSameAs methods provide.
+	 *
+	 */
+	public static class BufferedImageMatcherBuilder {
+		private static final ConcurrentMap<Integer, ForkJoinPool> DEDICATED_POOLS = new ConcurrentHashMap<>();
+
+		private ForkJoinPool pool;
+		private RasterComparator.Tolerance tolerance = RasterComparator.Tolerance.DEFAULT;
+		private SsimComparator structuralSimilarity;
+		private int streamingBandHeight = 0;
+		private ExclusionMask exclusions = ExclusionMask.NONE;
+		private int hintScale = 0;
+
+		private BufferedImageMatcherBuilder() {
+		}
+
+		/**
+		 * Sets how far apart two pixels can be and still be considered the same, as a fraction of the maximum distance
+		 * between two colours.  The default is 0.1.
+		 * 
+		 * This replaces any {@link #maxChannelDelta(int)}.
+		 * 
+		 * @param pixelToleranceLevel
+		 * 	fraction (at least 0 and less than 1) of the maximum distance between two colours
+		 * @return this builder
+		 */
+		public BufferedImageMatcherBuilder pixelToleranceLevel(double pixelToleranceLevel) {
+			this.tolerance = tolerance.withPixelToleranceLevel(pixelToleranceLevel);
+			return this;
+		}
+
+		/**
+		 * Considers two pixels to be the same if none of their channels differ by more than a given amount.
+		 * 
+		 * This replaces the {@link #pixelToleranceLevel(double)}.
+		 * 
+		 * @param maxChannelDelta
+		 * 	the largest difference (0-255) allowed in any one channel
+		 * @return this builder
+		 */
+		public BufferedImageMatcherBuilder maxChannelDelta(int maxChannelDelta) {
+			this.tolerance = tolerance.withMaxChannelDelta(maxChannelDelta);
+			return this;
+		}
+
+		/**
+		 * Sets the percentage of pixels that may differ before the images are considered to be different.  The default
+		 * is 0.0001165% which allows a few pixels to differ (to allow for font differences).
+		 * 
+		 * This replaces any {@link #allowedDifferentPixels(long)}.
+		 * 
+		 * @param allowedPercentOfDifferentPixels
+		 * 	percentage (0-100) of the pixels
+		 * @return this builder
+		 */
+		public BufferedImageMatcherBuilder allowedPercentOfDifferentPixels(double allowedPercentOfDifferentPixels) {
+			this.tolerance = tolerance.withAllowedPercentOfDifferentPixels(allowedPercentOfDifferentPixels);
+			return this;
+		}
+
+		/**
+		 * Sets the number of pixels that may differ before the images are considered to be different, regardless of
+		 * the size of the images.
+		 * 
+		 * This replaces the {@link #allowedPercentOfDifferentPixels(double)}.
+		 * 
+		 * @param allowedDifferentPixels
+		 * 	number of pixels
+		 * @return this builder
+		 */
+		public BufferedImageMatcherBuilder allowedDifferentPixels(long allowedDifferentPixels) {
+			this.tolerance = tolerance.withAllowedDifferentPixels(allowedDifferentPixels);
+			return this;
+		}
+
+		/**
+		 * Determines whether the alpha (transparency) channel is ignored.  The default is true.
+		 * 
+		 * When alpha is compared, images without an alpha channel are treated as opaque.
+		 * 
+		 * @param ignoreAlpha
+		 * 	true to compare only the RGB channels, false to compare the alpha channel as well
+		 * @return this builder
+		 */
+		public BufferedImageMatcherBuilder ignoreAlpha(boolean ignoreAlpha) {
+			this.tolerance = tolerance.withIgnoreAlpha(ignoreAlpha);
+			return this;
+		}
+
+		/**
+		 * Compares images by their structural similarity (SSIM) rather than by counting differing pixels.
+		 * 
+		 * The similarity of the images' luminance is calculated for every 8x8 window, and the images match if no window
+		 * is less similar than the minimum.  This tolerates the small, spread out differences caused by anti-aliasing
+		 * while still catching small but concentrated differences, such as a changed character.
+		 * 
+		 * When the match fails, the result image is a heatmap showing where the images differ.
+		 * 
+		 * The pixel tolerance and parallel comparison settings do not apply to structural similarity comparisons.
+		 * 
+		 * @param minimumSimilarity
+		 * 	the lowest similarity (greater than 0 and at most 1) allowed for any window
+		 * @return this builder
+		 */
+		public BufferedImageMatcherBuilder structuralSimilarity(double minimumSimilarity) {
+			return structuralSimilarity(minimumSimilarity, SsimComparator.DEFAULT_WINDOW_SIZE);
+		}
+
+		/**
+		 * Compares images by their structural similarity (SSIM) using a given window size.
+		 * 
+		 * @param minimumSimilarity
+		 * 	the lowest similarity (greater than 0 and at most 1) allowed for any window
+		 * @param windowSize
+		 * 	width and height (in pixels) of the windows that are compared.  Smaller windows are more sensitive to small
+		 *  differences.
+		 * @return this builder
+		 * @see #structuralSimilarity(double)
+		 */
+		public BufferedImageMatcherBuilder structuralSimilarity(double minimumSimilarity, int windowSize) {
+			this.structuralSimilarity = new SsimComparator(minimumSimilarity, windowSize);
+			return this;
+		}
+
+		/**
+		 * Compares large images in parallel on the common ForkJoinPool.
+		 * 
+		 * The images are split into bands of rows that are compared concurrently.  The allowance for differing pixels
+		 * still applies to the image as a whole, and all the bands stop as soon as it has been exceeded.  The frames of
+		 * multi-frame images (see {@link #isSameFramesAs(byte[])}) are also compared concurrently.
+		 * 
+		 * @return this builder
+		 */
+		public BufferedImageMatcherBuilder parallelComparison() {
+			this.pool = ForkJoinPool.commonPool();
+			return this;
+		}
+
+		/**
+		 * Compares large images in parallel on a dedicated ForkJoinPool.  There is one such pool for each level of
+		 * parallelism, and it is shared by all the matchers created by any builder with that parallelism (its threads
+		 * are daemon threads that end when they have been idle for a while).
+		 * 
+		 * @param parallelism
+		 * 	number of threads used to compare an image
+		 * @return this builder
+		 */
+		public BufferedImageMatcherBuilder parallelComparison(int parallelism) {
+			if (parallelism <= 0) {
+				throw new IllegalArgumentException("Parallelism must be greater than zero.");
+			}
+			this.pool = DEDICATED_POOLS.computeIfAbsent(parallelism, ForkJoinPool::new);
+			return this;
+		}
+
+		/**
+		 * Compares encoded images (byte arrays and files) a band of rows at a time, rather than decoding them completely
+		 * before comparing them.  Only one band of each image is in memory at a time and the comparison stops at the
+		 * first band where the allowance for differing pixels is exceeded.
+		 * 
+		 * This suits very large images stored in formats that can be read a region at a time, such as TIFF.  The JDK's
+		 * PNG reader always decodes the entire image, so PNG images are decoded once, completely, and then compared a band
+		 * at a time.
+		 * 
+		 * Images are still decoded completely to create a result image, and structural similarity comparisons are not
+		 * streamed.
+		 * 
+		 * @param bandHeight
+		 * 	number of rows in each band
+		 * @return this builder
+		 */
+		public BufferedImageMatcherBuilder streamingComparison(int bandHeight) {
+			if (bandHeight <= 0) {
+				throw new IllegalArgumentException("Band height must be greater than zero.");
+			}
+			this.streamingBandHeight = bandHeight;
+			return this;
+		}
+
+		/**
+		 * Excludes areas of the images from the comparison, such as timestamps or barcodes that change from run to run.
+		 * A pixel is excluded if its centre lies inside any of the areas, so any Shape (not just a Rectangle) can be used.
+		 * 
+		 * The areas are compiled once (for each image size) into the runs of pixels that are compared, and the compiled
+		 * form is shared by all the matchers created by this builder, so excluding areas does not slow comparisons down.
+		 * The allowance for differing pixels is still calculated from the total number of pixels.
+		 * 
+		 * Exclusions apply to pixel comparisons, not structural similarity comparisons.  Result images mark the bounds of
+		 * the excluded areas.
+		 * 
+		 * @param areas
+		 * 	areas (in pixels) to exclude, in addition to any already excluded
+		 * @return this builder
+		 */
+		public BufferedImageMatcherBuilder excluding(Shape... areas) {
+			List<Shape> excluded = new ArrayList<>(exclusions.exclusions());
+			excluded.addAll(Arrays.asList(areas));
+			this.exclusions = new ExclusionMask(excluded);
+			return this;
+		}
+
+		/**
+		 * Says roughly where images that don't match differ, using a low resolution comparison with blocks of 8 x 8
+		 * pixels.
+		 * 
+		 * @return this builder
+		 * @see #mismatchLocationHint(int)
+		 */
+		public BufferedImageMatcherBuilder mismatchLocationHint() {
+			return mismatchLocationHint(PyramidComparator.DEFAULT_SCALE);
+		}
+
+		/**
+		 * Says roughly where images that don't match differ, using a low resolution comparison.
+		 * 
+		 * Images are compared at full resolution as usual.  If they don't match, the images are divided into blocks of
+		 * scale x scale pixels and the mismatch description includes the area covered by the blocks that contain any
+		 * differences, which is useful when a large image fails to match.  Images that match aren't slowed down.
+		 * 
+		 * The hint applies to pixel comparisons of images that are not streamed, not to structural similarity
+		 * comparisons.
+		 * 
+		 * @param scale
+		 * 	width and height (2-256 pixels) of the blocks
+		 * @return this builder
+		 */
+		public BufferedImageMatcherBuilder mismatchLocationHint(int scale) {
+			if (scale < 2 || scale > 256) {
+				throw new IllegalArgumentException("Scale must be between 2 and 256 (" + scale + ").");
+			}
+			this.hintScale = scale;
+			return this;
+		}
+
+		private boolean isStreaming() {
+			return streamingBandHeight > 0 && structuralSimilarity == null;
+		}
+
+		private Matcher<Path> streamingMatcher(Path expected, Consumer<BufferedImage> resultImageWriter) {
+			return new StreamingMatcher<>(expected, EncodedImages.BandReader::of, p->ImageComparisonUtil.readImageFromResources(p.toString()),
+										  (e, a)->false, new RasterComparator(tolerance, exclusions, pool), streamingBandHeight, resultImageWriter);
+		}
+
+		private Matcher<byte[]> streamingMatcher(byte[] expected, Consumer<BufferedImage> resultImageWriter) {
+			return new StreamingMatcher<>(expected, EncodedImages.BandReader::of, BufferedImageMatcher::bufferedImageFromByteArray,
+										  Arrays::equals, new RasterComparator(tolerance, exclusions, pool), streamingBandHeight, resultImageWriter);
+		}
+
+		private ImageComparator comparator() {
+			if (structuralSimilarity != null) {
+				return structuralSimilarity;
+			}
+			RasterComparator rasterComparator = new RasterComparator(tolerance, exclusions, pool);
+			return hintScale > 0 ? new PyramidComparator(rasterComparator, hintScale) : rasterComparator;
+		}
+
+		/**
+		 * @param expected the expected image
+		 * @return a matcher that compares another image to the expected image
+		 */
+		public Matcher<BufferedImage> isSameAs(BufferedImage expected) {
+			return new BufferedImageMatcher(expected, comparator(), null);
+		}
+
+		/**
+		 * @param expected the expected image
+		 * @param resultImageConsumer a Consumer to save the comparison resuit if the match fails
+		 * @return a matcher that compares another image to the expected image and calls the Consumer if they don't match 
+		 */
+		public Matcher<BufferedImage> isSameAs(BufferedImage expected, Consumer<BufferedImage> resultImageConsumer) {
+			return new BufferedImageMatcher(expected, comparator(), resultImageConsumer);
+		}
+
+		/**
+		 * @param expected the location of the expected image 
+		 * @return a matcher that compares another image file to the expected image file
+		 */
+		public Matcher<Path> isSameAs(Path expected) {
+			if (isStreaming()) {
+				return streamingMatcher(expected, null);
+			}
+			return createMatcher(expected, i->new BufferedImageMatcher(i, comparator(), null));
+		}
+
+		/**
+		 * @param expected the location of the expected image 
+		 * @param result the location where the result image will be stored if the image does not match the expected image
+		 * @return a matcher that compares another image file to the expected image file and writes out the result if they don't match 
+		 */
+		public Matcher<Path> isSameAs(Path expected, Path result) {
+			Consumer<BufferedImage> resultImageWriter = r->ImageComparisonUtil.saveImage(result.toFile(), r);
+			if (isStreaming()) {
+				return streamingMatcher(expected, resultImageWriter);
+			}
+			return createMatcher(expected, i->new BufferedImageMatcher(i, comparator(), resultImageWriter));
+		}
+
+		/**
+		 * @param expected the expected image
+		 * @return a matcher that compares another image to the expected image
+		 */
+		public Matcher<byte[]> isSameAs(byte[] expected) {
+			if (isStreaming()) {
+				return streamingMatcher(expected, null);
+			}
+			return createMatcher(expected, i->new BufferedImageMatcher(i, comparator(), null), false);
+		}
+
+		/**
+		 * @param expected the expected image
+		 * @param resultImageConsumer a Consumer to save the comparison resuit if the match fails
+		 * @return a matcher that compares another image's bytes to the expected image's bytes and calls the Consumer if they don't match 
+		 */
+		public Matcher<byte[]> isSameAs(byte[] expected, Consumer<byte[]> resultImageConsumer) {
+			Consumer<BufferedImage> resultImageWriter = r->resultImageConsumer.accept(byteArrayFromBufferedImage(r));
+			if (isStreaming()) {
+				return streamingMatcher(expected, resultImageWriter);
+			}
+			return createMatcher(expected, i->new BufferedImageMatcher(i, comparator(), resultImageWriter), true);
+		}
+
+		/**
+		 * Compares multi-frame images (such as the multi-page TIFFs produced for fax and archive channels) frame by
+		 * frame, using this builder's settings for each pair of frames.  The frames are read one at a time, so only one
+		 * frame of each image is in memory.  If a parallel comparison has been requested, the frames are compared
+		 * concurrently on its pool instead (with one frame of each image in memory per thread).
+		 * 
+		 * Every frame is compared and the mismatch description lists the (zero-based) indexes of the frames that
+		 * differ.  Streaming comparisons and result images are not supported.
+		 * 
+		 * @param expected the expected image
+		 * @return a matcher that compares each frame of another image to the corresponding frame of the expected image
+		 */
+		public Matcher<byte[]> isSameFramesAs(byte[] expected) {
+			return new FrameMatcher<>(expected, EncodedImages.FrameReader::of, Arrays::equals, comparator(), pool);
+		}
+
+		/**
+		 * Compares multi-frame image files frame by frame.
+		 * 
+		 * @param expected the location of the expected image 
+		 * @return a matcher that compares each frame of another image file to the corresponding frame of the expected image file
+		 * @see #isSameFramesAs(byte[])
+		 */
+		public Matcher<Path> isSameFramesAs(Path expected) {
+			return new FrameMatcher<>(expected, EncodedImages.FrameReader::of, (e, a)->false, comparator(), pool);
+		}
+
+		/**
+		 * @return a new builder
+		 */
+		public static BufferedImageMatcherBuilder instance() {
+			return new BufferedImageMatcherBuilder();
+		}
+	}
+
 }
\ No newline at end of file
@@ -0,0 +1,99 @@
+package com._4point.testing.matchers.aem;
+
+import java.io.IOException;
+import java.util.BitSet;
+import java.util.function.IntPredicate;
+
+import de.redsix.pdfcompare.Exclusions;
+import de.redsix.pdfcompare.PageArea;
+import de.redsix.pdfcompare.env.Environment;
+import de.redsix.pdfcompare.env.SimpleEnvironment;
+
+/**
+ * A quick, low resolution comparison that determines which pages need to be compared at full resolution.
+ *
+ * Both documents are rendered at a low DPI and compared.  Only pages that differ at the low DPI (plus a regular
+ * sample of the pages, if requested) are then compared at full resolution, so a passing comparison
+ * only renders most pages at the low DPI.
+ */
+/*package*/ class CoarsePass {
+	private final int dpi;
+	private final int sampleInterval;
+
+	/**
+	 * @param dpi
+	 * 	resolution used for the coarse comparison
+	 * @param sampleInterval
+	 * 	every sampleInterval'th page (starting with the first page) is compared at full resolution even if it
+	 *  matches at the coarse resolution.  Zero means that only pages that differ at the coarse resolution
+	 *  are compared at full resolution.
+	 */
+	/*package*/ CoarsePass(int dpi, int sampleInterval) {
+		if (dpi <= 0) {
+			throw new IllegalArgumentException("Coarse DPI must be greater than zero.");
+		}
+		if (sampleInterval < 0) {
+			throw new IllegalArgumentException("Sample interval cannot be negative.");
+		}
+		this.dpi = dpi;
+		this.sampleInterval = sampleInterval;
+	}
+
+	/**
+	 * @param fullResolutionEnvironment
+	 * 	environment used for the full resolution comparison
+	 * @return an environment with the same settings except for the DPI
+	 */
+	/*package*/ Environment environment(Environment fullResolutionEnvironment) {
+		return new SimpleEnvironment(fullResolutionEnvironment).setDPI(dpi);
+	}
+
+	/**
+	 * Compares the candidate pages at the coarse resolution.
+	 * 
+	 * @param expected
+	 * 	expected (gold) pages, rendered using {@link #environment(Environment)}
+	 * @param actual
+	 * 	actual pages, rendered using {@link #environment(Environment)}
+	 * @param fullResolutionEnvironment
+	 * 	environment used for the full resolution comparison
+	 * @param exclusions
+	 * 	exclusions for the full resolution comparison
+	 * @param candidates
+	 * 	selects the (zero-based) indexes of the pages that may need comparing
+	 * @return predicate that selects the pages to compare at full resolution
+	 * @throws IOException if either document cannot be read or rendered
+	 */
+	/*package*/ IntPredicate pagesToCompare(RenderedPages expected, RenderedPages actual, Environment fullResolutionEnvironment, Exclusions exclusions, IntPredicate candidates) throws IOException {
+		Environment coarseEnvironment = environment(fullResolutionEnvironment);
+		Exclusions coarseExclusions = scale(exclusions, coarseEnvironment, (double)dpi / fullResolutionEnvironment.getDPI());
+		BitSet differingPages = new PageComparison(coarseEnvironment, coarseExclusions).differingPages(expected, actual, candidates);
+		return pageIndex -> candidates.test(pageIndex) && (differingPages.get(pageIndex) || isSampled(pageIndex));
+	}
+
+	@Override
+	public String toString() {
+		return "CoarsePass[dpi=" + dpi + ", sampleInterval=" + sampleInterval + "]";
+	}
+
+	private boolean isSampled(int pageIndex) {
+		return sampleInterval > 0 && pageIndex % sampleInterval == 0;
+	}
+
+	// Exclusion coordinates are in pixels, so they have to be scaled to the coarse resolution (rounding outwards).
+	private static Exclusions scale(Exclusions exclusions, Environment coarseEnvironment, double factor) {
+		Exclusions scaled = new Exclusions(coarseEnvironment);
+		exclusions.forEach(area->{
+			if (!area.hasCoordinates()) {
+				scaled.add(area);
+				return;
+			}
+			int x1 = (int)Math.floor(area.getX1() * factor);
+			int y1 = (int)Math.floor(area.getY1() * factor);
+			int x2 = (int)Math.ceil(area.getX2() * factor);
+			int y2 = (int)Math.ceil(area.getY2() * factor);
+			scaled.add(area.hasPage() ? new PageArea(area.getPage(), x1, y1, x2, y2) : new PageArea(x1, y1, x2, y2));
+		});
+		return scaled;
+	}
+}
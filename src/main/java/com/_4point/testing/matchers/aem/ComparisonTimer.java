@@ -0,0 +1,179 @@
+package com._4point.testing.matchers.aem;
+
+import java.awt.image.DataBuffer;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import com._4point.testing.matchers.aem.PdfComparisonTimings.Phase;
+
+import de.redsix.pdfcompare.ImageWithDimension;
+
+/**
+ * Collects the timings of a single comparison (see {@link PdfComparisonTimings}).
+ *
+ * Timings may be recorded from several threads at once.
+ */
+/*package*/ class ComparisonTimer {
+	private final long start = System.nanoTime();
+	private final Map<Phase, LongAdder> phaseNanos = new ConcurrentHashMap<>();
+	private final Map<Integer, PageNanos> pageNanos = new ConcurrentSkipListMap<>();
+	private final AtomicLong peakImageBytes = new AtomicLong();
+	private volatile int expectedPageCount = -1;
+	private volatile int actualPageCount = -1;
+
+	@FunctionalInterface
+	/*package*/ interface TimedAction<T> {
+		T perform() throws IOException;
+	}
+
+	/**
+	 * Performs an action and records how long it took.
+	 * 
+	 * @param <T>
+	 * 	type of the action's result
+	 * @param phase
+	 * 	phase the action belongs to
+	 * @param action
+	 * 	the action
+	 * @return the action's result
+	 * @throws IOException if the action throws one
+	 */
+	/*package*/ <T> T time(Phase phase, TimedAction<T> action) throws IOException {
+		long actionStart = System.nanoTime();
+		try {
+			return action.perform();
+		} finally {
+			record(phase, System.nanoTime() - actionStart);
+		}
+	}
+
+	/**
+	 * Performs an action on a page and records how long it took.
+	 * 
+	 * @param <T>
+	 * 	type of the action's result
+	 * @param phase
+	 * 	phase the action belongs to (RENDER or DIFF)
+	 * @param pageIndex
+	 * 	zero-based index of the page
+	 * @param action
+	 * 	the action
+	 * @return the action's result
+	 * @throws IOException if the action throws one
+	 */
+	/*package*/ <T> T time(Phase phase, int pageIndex, TimedAction<T> action) throws IOException {
+		long actionStart = System.nanoTime();
+		try {
+			return action.perform();
+		} finally {
+			long elapsed = System.nanoTime() - actionStart;
+			record(phase, elapsed);
+			PageNanos page = pageNanos.computeIfAbsent(pageIndex, i->new PageNanos());
+			(phase == Phase.DIFF ? page.diff : page.render).add(elapsed);
+		}
+	}
+
+	/**
+	 * Records the memory occupied by the rendered images of a page.
+	 * 
+	 * @param images
+	 * 	the page's images (null images are ignored)
+	 */
+	/*package*/ void recordImages(ImageWithDimension... images) {
+		long bytes = 0;
+		for (ImageWithDimension image : images) {
+			if (image != null) {
+				DataBuffer buffer = image.bufferedImage.getRaster().getDataBuffer();
+				bytes += (long)buffer.getSize() * buffer.getNumBanks() * DataBuffer.getDataTypeSize(buffer.getDataType()) / 8;
+			}
+		}
+		peakImageBytes.accumulateAndGet(bytes, Math::max);
+	}
+
+	/**
+	 * Wraps rendered pages so that parsing and rendering them is timed.
+	 * 
+	 * @param pages
+	 * 	rendered pages
+	 * @param expected
+	 * 	true if these are the expected (gold) pages
+	 * @return the timed pages
+	 */
+	/*package*/ RenderedPages timed(RenderedPages pages, boolean expected) {
+		return new Timed(pages, expected);
+	}
+
+	/**
+	 * @param goldFile
+	 * 	the gold file that was compared against
+	 * @return the timings recorded so far
+	 */
+	/*package*/ PdfComparisonTimings finish(Path goldFile) {
+		Duration total = Duration.ofNanos(System.nanoTime() - start);
+		Map<Phase, Duration> phases = new EnumMap<>(Phase.class);
+		phaseNanos.forEach((phase, nanos)->phases.put(phase, Duration.ofNanos(nanos.sum())));
+		List<PdfComparisonTimings.PageTiming> pages = pageNanos.entrySet().stream()
+															   .map(e->new PdfComparisonTimings.PageTiming(e.getKey() + 1, Duration.ofNanos(e.getValue().render.sum()), Duration.ofNanos(e.getValue().diff.sum())))
+															   .toList();
+		return new PdfComparisonTimings(goldFile, total, Map.copyOf(phases), pages, expectedPageCount, actualPageCount, peakImageBytes.get());
+	}
+
+	private void record(Phase phase, long nanos) {
+		phaseNanos.computeIfAbsent(phase, p->new LongAdder()).add(nanos);
+	}
+
+	private static class PageNanos {
+		private final LongAdder render = new LongAdder();
+		private final LongAdder diff = new LongAdder();
+	}
+
+	// Parsing happens on first use, so the page count is retrieved (and timed as parsing) before anything else.
+	private class Timed extends RenderedPages {
+		private final RenderedPages source;
+		private final boolean expected;
+		private int pageCount = -1;
+
+		private Timed(RenderedPages source, boolean expected) {
+			this.source = source;
+			this.expected = expected;
+		}
+
+		@Override
+		/*package*/ synchronized int pageCount() throws IOException {
+			if (pageCount < 0) {
+				pageCount = time(Phase.PARSE, source::pageCount);
+				if (expected) {
+					expectedPageCount = pageCount;
+				} else {
+					actualPageCount = pageCount;
+				}
+			}
+			return pageCount;
+		}
+
+		@Override
+		/*package*/ ImageWithDimension page(int pageIndex) throws IOException {
+			pageCount();
+			return time(Phase.RENDER, pageIndex, ()->source.page(pageIndex));
+		}
+
+		@Override
+		/*package*/ List<PageFingerprint> fingerprints() throws IOException {
+			pageCount();
+			return time(Phase.FINGERPRINT, source::fingerprints);
+		}
+
+		@Override
+		public void close() throws IOException {
+			source.close();
+		}
+	}
+}
@@ -0,0 +1,237 @@
+package com._4point.testing.matchers.aem;
+
+import java.awt.Dimension;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.Set;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+
+/**
+ * Utilities for examining encoded (e.g. PNG) images without decoding them.
+ */
+/*package*/ final class EncodedImages {
+
+	private EncodedImages() {
+	}
+
+	/**
+	 * Reads the width and height of an encoded image from its header.  The pixels are not decoded.
+	 *
+	 * @param image
+	 * 	bytes of an encoded image
+	 * @return the image's width and height, or an empty Optional if the image is not in a format that ImageIO can read
+	 */
+	/*package*/ static Optional<Dimension> dimensionsOf(byte[] image) {
+		try (ImageInputStream is = ImageIO.createImageInputStream(new ByteArrayInputStream(image))) {
+			Iterator<ImageReader> readers = ImageIO.getImageReaders(is);
+			if (!readers.hasNext()) {
+				return Optional.empty();
+			}
+			ImageReader reader = readers.next();
+			try {
+				reader.setInput(is, true, true);
+				return Optional.of(new Dimension(reader.getWidth(0), reader.getHeight(0)));
+			} finally {
+				reader.dispose();
+			}
+		} catch (IOException e) {
+			// Unreadable images are left for the full decode to report.
+			return Optional.empty();
+		}
+	}
+
+	// An ImageReader that is reading an encoded image, along with the stream it is reading from.
+	private abstract static class EncodedImage implements Closeable {
+		private final Closeable source;
+		private final ImageInputStream stream;
+		protected final ImageReader reader;
+
+		// input is anything ImageIO can create an ImageInputStream from and source (if not null) is closed with the stream.
+		private EncodedImage(Object input, Closeable source, boolean seekForwardOnly) throws IOException {
+			this.source = source;
+			this.stream = ImageIO.createImageInputStream(input);
+			Iterator<ImageReader> readers = stream != null ? ImageIO.getImageReaders(stream) : null;
+			if (readers == null || !readers.hasNext()) {
+				close(stream, source);
+				throw new IOException("Image is not in a format that can be read.");
+			}
+			this.reader = readers.next();
+			reader.setInput(stream, seekForwardOnly, true);
+		}
+
+		@Override
+		public void close() throws IOException {
+			reader.dispose();
+			close(stream, source);
+		}
+
+		private static void close(Closeable stream, Closeable source) throws IOException {
+			try {
+				if (stream != null) {
+					stream.close();
+				}
+			} finally {
+				if (source != null) {
+					source.close();
+				}
+			}
+		}
+	}
+
+	@FunctionalInterface
+	private interface EncodedImageFactory<T extends EncodedImage> {
+		T open(Object input, Closeable source) throws IOException;
+	}
+
+	// Opens an image file, or a resource on the classpath if there is no such file (like ImageComparisonUtil does).
+	private static <T extends EncodedImage> T open(Path image, EncodedImageFactory<T> factory) throws IOException {
+		File file = image.toFile();
+		if (file.exists()) {
+			return factory.open(file, null);
+		}
+		InputStream resource = EncodedImages.class.getClassLoader().getResourceAsStream(image.toString());
+		if (resource == null) {
+			throw new FileNotFoundException("Image with path = " + image + " not found");
+		}
+		return factory.open(resource, resource);
+	}
+
+	/**
+	 * Reads an encoded image a band of rows at a time, so that only one band needs to be in memory.
+	 *
+	 * Images whose rows are stored in separately addressable strips or tiles (TIFF images, and tiled images in any
+	 * format) are read a band at a time using a source region, so only the rows in the band are decoded.  Other formats
+	 * (such as PNG and JPEG) can only be decoded from the start, whatever the source region is, so reading them a band
+	 * at a time would decode the image over and over again.  They are decoded once, completely, and the bands are
+	 * views of the decoded image.
+	 */
+	/*package*/ static final class BandReader extends EncodedImage {
+		private static final Set<String> REGION_READABLE_FORMATS = Set.of("tif", "tiff");
+
+		private final ImageReadParam param;
+		private final boolean readsRegions;
+		private BufferedImage band;
+		private BufferedImage wholeImage;
+
+		private BandReader(Object input, Closeable source) throws IOException {
+			super(input, source, true);
+			this.param = reader.getDefaultReadParam();
+			this.readsRegions = REGION_READABLE_FORMATS.contains(reader.getFormatName().toLowerCase(Locale.ROOT)) || reader.isImageTiled(0);
+		}
+
+		/**
+		 * @param image
+		 * 	bytes of an encoded image
+		 * @return a BandReader that reads the image
+		 * @throws IOException if the image cannot be read
+		 */
+		/*package*/ static BandReader of(byte[] image) throws IOException {
+			return new BandReader(new ByteArrayInputStream(image), null);
+		}
+
+		/**
+		 * @param image
+		 * 	location of an image file, or of a resource on the classpath if there is no such file
+		 * @return a BandReader that reads the image
+		 * @throws IOException if the image cannot be found or read
+		 */
+		/*package*/ static BandReader of(Path image) throws IOException {
+			return open(image, BandReader::new);
+		}
+
+		/*package*/ int width() throws IOException {
+			return reader.getWidth(0);
+		}
+
+		/*package*/ int height() throws IOException {
+			return reader.getHeight(0);
+		}
+
+		/**
+		 * Reads a band of rows.  The image returned may be reused by the next call, so it is only valid until then.
+		 *
+		 * @param firstRow
+		 * 	first row of the band
+		 * @param rows
+		 * 	number of rows in the band
+		 * @return the band
+		 * @throws IOException if the image cannot be read
+		 */
+		/*package*/ BufferedImage read(int firstRow, int rows) throws IOException {
+			if (!readsRegions) {
+				if (wholeImage == null) {
+					wholeImage = reader.read(0);
+				}
+				return wholeImage.getSubimage(0, firstRow, wholeImage.getWidth(), rows);
+			}
+			param.setSourceRegion(new Rectangle(0, firstRow, width(), rows));
+			param.setDestination(band != null && band.getHeight() == rows ? band : null);
+			band = reader.read(0, param);
+			return band;
+		}
+	}
+
+	/**
+	 * Reads the frames (pages) of a multi-frame encoded image (such as a multi-page TIFF) one at a time, so that only
+	 * one frame needs to be in memory.
+	 */
+	/*package*/ static final class FrameReader extends EncodedImage {
+
+		// The frames have to be counted before they are read, so the reader cannot be restricted to seeking forwards.
+		private FrameReader(Object input, Closeable source) throws IOException {
+			super(input, source, false);
+		}
+
+		/**
+		 * @param image
+		 * 	bytes of an encoded image
+		 * @return a FrameReader that reads the image
+		 * @throws IOException if the image cannot be read
+		 */
+		/*package*/ static FrameReader of(byte[] image) throws IOException {
+			return new FrameReader(new ByteArrayInputStream(image), null);
+		}
+
+		/**
+		 * @param image
+		 * 	location of an image file, or of a resource on the classpath if there is no such file
+		 * @return a FrameReader that reads the image
+		 * @throws IOException if the image cannot be found or read
+		 */
+		/*package*/ static FrameReader of(Path image) throws IOException {
+			return open(image, FrameReader::new);
+		}
+
+		/**
+		 * @return the number of frames in the image (which may require the whole image to be scanned)
+		 * @throws IOException if the image cannot be read
+		 */
+		/*package*/ int frameCount() throws IOException {
+			return reader.getNumImages(true);
+		}
+
+		/**
+		 * @param frameIndex
+		 * 	zero-based index of the frame
+		 * @return the decoded frame
+		 * @throws IOException if the image cannot be read
+		 */
+		/*package*/ BufferedImage read(int frameIndex) throws IOException {
+			return reader.read(frameIndex);
+		}
+	}
+}
@@ -0,0 +1,121 @@
+package com._4point.testing.matchers.aem;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.Shape;
+import java.awt.image.BufferedImage;
+import java.awt.image.Raster;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Areas of an image that are excluded from comparisons (such as timestamps, barcodes and page numbers).
+ *
+ * The areas are compiled into {@link Spans}: for each row, the runs of pixels that are compared.  Comparisons then
+ * skip the excluded pixels rather than the images having to be copied and painted over.  The spans are compiled once
+ * (for a given image size) and then reused by every comparison.
+ */
+/*package*/ final class ExclusionMask {
+	/*package*/ static final ExclusionMask NONE = new ExclusionMask(List.of());
+
+	private final List<Shape> exclusions;
+	private volatile Spans compiled;	// The most recently compiled spans
+
+	/**
+	 * @param exclusions
+	 * 	areas to exclude.  A pixel is excluded if its centre is inside one of the areas.
+	 */
+	/*package*/ ExclusionMask(List<Shape> exclusions) {
+		this.exclusions = List.copyOf(exclusions);
+	}
+
+	/**
+	 * @return the areas that are excluded
+	 */
+	/*package*/ List<Shape> exclusions() {
+		return exclusions;
+	}
+
+	/**
+	 * Gets the spans of the pixels that are compared in images of a given size, compiling them if necessary.
+	 *
+	 * @param width
+	 * 	width of the images
+	 * @param height
+	 * 	height of the images
+	 * @return the spans
+	 */
+	/*package*/ Spans spans(int width, int height) {
+		Spans spans = compiled;
+		if (spans == null || spans.width != width || spans.height != height) {
+			spans = compile(width, height);
+			compiled = spans;
+		}
+		return spans;
+	}
+
+	private Spans compile(int width, int height) {
+		int[] wholeRow = { 0, width };
+		if (exclusions.isEmpty()) {
+			return new Spans(width, height, wholeRow, null);
+		}
+		// The areas are filled into a 1 bit image (so that shapes are rasterized exactly as Java2D would draw them)
+		// which is then run length encoded.
+		BufferedImage mask = new BufferedImage(width, height, BufferedImage.TYPE_BYTE_BINARY);
+		Graphics2D g = mask.createGraphics();
+		try {
+			g.setColor(Color.WHITE);
+			exclusions.forEach(g::fill);
+		} finally {
+			g.dispose();
+		}
+		Raster raster = mask.getRaster();
+		int[] pixels = new int[width];
+		int[] runs = new int[width + 1];
+		int[][] rows = new int[height][];
+		for (int y = 0; y < height; y++) {
+			raster.getSamples(0, y, width, 1, 0, pixels);
+			int runCount = 0;
+			for (int x = 0; x < width; x++) {
+				if (pixels[x] == 0 && (x == 0 || pixels[x - 1] != 0)) {
+					runs[runCount++] = x;	// Start of a compared run
+				} else if (pixels[x] != 0 && x > 0 && pixels[x - 1] == 0) {
+					runs[runCount++] = x;	// End of a compared run
+				}
+			}
+			if (runCount % 2 != 0) {
+				runs[runCount++] = width;
+			}
+			int[] row = Arrays.copyOf(runs, runCount);
+			// Most rows are the same as the row above (or aren't masked at all), so these share their spans.
+			rows[y] = Arrays.equals(row, wholeRow) ? wholeRow : y > 0 && Arrays.equals(row, rows[y - 1]) ? rows[y - 1] : row;
+		}
+		return new Spans(width, height, wholeRow, rows);
+	}
+
+	/**
+	 * The pixels that are compared in each row of an image.
+	 */
+	/*package*/ static final class Spans {
+		private final int width;
+		private final int height;
+		private final int[] wholeRow;
+		private final int[][] rows;	// null if every pixel is compared
+
+		private Spans(int width, int height, int[] wholeRow, int[][] rows) {
+			this.width = width;
+			this.height = height;
+			this.wholeRow = wholeRow;
+			this.rows = rows;
+		}
+
+		/**
+		 * @param y
+		 * 	row of the image
+		 * @return pairs of start (inclusive) and end (exclusive) columns of the runs of pixels that are compared
+		 */
+		/*package*/ int[] row(int y) {
+			return rows != null ? rows[y] : wholeRow;
+		}
+	}
+}
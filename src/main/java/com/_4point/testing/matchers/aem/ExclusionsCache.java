@@ -0,0 +1,68 @@
+package com._4point.testing.matchers.aem;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import de.redsix.pdfcompare.Exclusions;
+import de.redsix.pdfcompare.env.Environment;
+
+/**
+ * Cache of parsed exclusion files.
+ * 
+ * Test suites tend to use the same exclusions file for many comparisons, so each file is only parsed once
+ * (into pdfcompare's per-page exclusion areas) and then reused until the file is modified.  Exclusion areas
+ * that are specified in cm or mm are converted to pixels when the file is parsed, so the DPI is also part
+ * of the cache key.
+ * 
+ * The cached Exclusions objects are shared, so they must not be modified.
+ */
+/*package*/ class ExclusionsCache {
+	private static final ExclusionsCache SHARED_CACHE = new ExclusionsCache();
+	
+	private final ConcurrentMap<Key, CachedExclusions> cache = new ConcurrentHashMap<>();
+
+	/**
+	 * @return the ExclusionsCache shared by all PdfComparers.
+	 */
+	/*package*/ static ExclusionsCache shared() {
+		return SHARED_CACHE;
+	}
+
+	/**
+	 * Returns the parsed exclusions in an exclusions file, parsing the file only if it has not been parsed 
+	 * before or it has changed since it was parsed.
+	 * 
+	 * @param exclusionsFile
+	 * 	location of the exclusions file
+	 * @param environment
+	 * 	pdfcompare environment used to parse the file
+	 * @return the exclusions
+	 * @throws IOException if the exclusions file cannot be read
+	 */
+	/*package*/ Exclusions exclusionsFor(Path exclusionsFile, Environment environment) throws IOException {
+		Path path = exclusionsFile.toAbsolutePath().normalize();
+		BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+		Key key = new Key(path, environment.getDPI());
+		CachedExclusions cached = cache.get(key);
+		if (cached != null && cached.isCurrent(attributes)) {
+			return cached.exclusions();
+		}
+		Exclusions exclusions = new Exclusions(environment);
+		exclusions.readExclusions(path);
+		cache.put(key, new CachedExclusions(attributes.lastModifiedTime(), attributes.size(), exclusions));
+		return exclusions;
+	}
+	
+	private record Key(Path path, int dpi) {}
+	
+	private record CachedExclusions(FileTime lastModifiedTime, long size, Exclusions exclusions) {
+		private boolean isCurrent(BasicFileAttributes attributes) {
+			return lastModifiedTime.equals(attributes.lastModifiedTime()) && size == attributes.size();
+		}
+	}
+}
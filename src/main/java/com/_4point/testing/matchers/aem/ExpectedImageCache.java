@@ -0,0 +1,95 @@
+package com._4point.testing.matchers.aem;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.ref.SoftReference;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.github.romankh3.image.comparison.ImageComparisonUtil;
+
+/**
+ * Cache of decoded expected images.
+ *
+ * Parameterized test suites tend to compare many images against the same expected image, so each expected image is
+ * only decoded once and then reused until its file is modified.  Images are located the same way as
+ * {@link ImageComparisonUtil#readImageFromResources(String)} locates them: as a file if one exists, otherwise as a
+ * resource on the classpath (which cannot change while the tests run).
+ *
+ * Decoded images are large, so they are held through SoftReferences and the garbage collector is free to discard them
+ * when memory runs short (they are simply decoded again the next time they are wanted).
+ *
+ * The cached images are shared, so they must not be modified.
+ */
+/*package*/ class ExpectedImageCache {
+	private static final ExpectedImageCache SHARED_CACHE = new ExpectedImageCache();
+
+	private final ConcurrentMap<String, CachedImage> cache = new ConcurrentHashMap<>();
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+
+	/**
+	 * @return the ExpectedImageCache shared by all BufferedImageMatchers.
+	 */
+	/*package*/ static ExpectedImageCache shared() {
+		return SHARED_CACHE;
+	}
+
+	/**
+	 * Returns the decoded image at a location, decoding it only if it has not been decoded before, it has changed
+	 * since it was decoded or the decoded image has been discarded.
+	 *
+	 * @param image
+	 * 	location of an image file, or of a resource on the classpath if there is no such file
+	 * @return the decoded image
+	 */
+	/*package*/ BufferedImage imageFor(Path image) {
+		Path path = image.toAbsolutePath().normalize();
+		BasicFileAttributes attributes = attributesOf(path);
+		// Resources are keyed by their name, files by their full path.
+		String key = attributes != null ? path.toString() : image.toString();
+		FileTime lastModifiedTime = attributes != null ? attributes.lastModifiedTime() : null;
+		long size = attributes != null ? attributes.size() : -1;
+		CachedImage cached = cache.get(key);
+		BufferedImage decoded = cached != null && cached.isCurrent(lastModifiedTime, size) ? cached.image().get() : null;
+		if (decoded != null) {
+			hits.increment();
+			return decoded;
+		}
+		misses.increment();
+		decoded = ImageComparisonUtil.readImageFromResources(image.toString());
+		cache.put(key, new CachedImage(lastModifiedTime, size, new SoftReference<>(decoded)));
+		return decoded;
+	}
+
+	/**
+	 * @return how many images have been found in the cache and how many had to be decoded
+	 */
+	/*package*/ BufferedImageMatcher.CacheStatistics statistics() {
+		return new BufferedImageMatcher.CacheStatistics(hits.sum(), misses.sum());
+	}
+
+	private static BasicFileAttributes attributesOf(Path path) {
+		if (!Files.exists(path)) {
+			return null;
+		}
+		try {
+			return Files.readAttributes(path, BasicFileAttributes.class);
+		} catch (IOException e) {
+			throw new UncheckedIOException("Error while reading attributes of " + path, e);
+		}
+	}
+
+	private record CachedImage(FileTime lastModifiedTime, long size, SoftReference<BufferedImage> image) {
+		private boolean isCurrent(FileTime lastModifiedTime, long size) {
+			return Objects.equals(this.lastModifiedTime, lastModifiedTime) && this.size == size;
+		}
+	}
+}
@@ -0,0 +1,353 @@
+package com._4point.testing.matchers.aem;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Optional;
+import java.util.OptionalInt;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+import org.apache.pdfbox.util.Version;
+
+import de.redsix.pdfcompare.ImageWithDimension;
+import de.redsix.pdfcompare.PdfComparator;
+
+/**
+ * On-disk cache of rasterized "gold" pages.
+ *
+ * Rendered pages are stored in a compact raw form (deflated RGB pixels) under a directory that is keyed
+ * by the gold file's digest, the rendering DPI and the renderer version.  Since the digest is part of the
+ * key, a changed gold file never sees stale pages and the entries for its old content are removed the
+ * next time it is looked up.  The cache is trimmed (least recently used pages first) whenever it grows
+ * beyond its size cap.
+ *
+ * Entries are written to temporary files and then moved into place, so several JVMs (e.g. forked test
+ * runners) can safely share the same cache directory.
+ *
+ * Walking the cache directory to find its size is expensive, so it is only walked the first time the cache
+ * is trimmed.  After that, a running total of the bytes written by this JVM is kept and the directory is only
+ * walked again when that total exceeds the size cap.
+ */
+/*package*/ class GoldPageCache {
+	/*package*/ static final String RENDERER_VERSION = "pdfbox-" + Optional.ofNullable(Version.getVersion()).orElse("unknown") + "_pdfcompare-" + pdfCompareVersion();
+	private static final String PAGE_COUNT_FILENAME = "pages";
+	private static final String PAGE_FILE_PREFIX = "page-";
+	private static final String PAGE_FILE_EXTENSION = ".bin";
+	private static final String TEMP_FILE_EXTENSION = ".tmp";
+	private static final int PAGE_FILE_MAGIC = 0x34504743;	// "4PGC"
+
+	private final Path cacheDir;
+	private final long maxSizeInBytes;
+	private final AtomicLong estimatedSize = new AtomicLong(-1);	// -1 until the cache directory has been walked
+
+	/**
+	 * Constructs a GoldPageCache
+	 *
+	 * @param cacheDir
+	 * 	directory where the rendered pages are stored.  It will be created if it does not already exist.
+	 * @param maxSizeInBytes
+	 * 	maximum size of the cache.  Least recently used pages are removed when the cache exceeds this size.
+	 */
+	/*package*/ GoldPageCache(Path cacheDir, long maxSizeInBytes) {
+		if (cacheDir == null) {
+			throw new IllegalArgumentException("Gold page cache directory cannot be null.");
+		}
+		if (maxSizeInBytes <= 0) {
+			throw new IllegalArgumentException("Gold page cache size must be greater than zero.");
+		}
+		this.cacheDir = cacheDir;
+		this.maxSizeInBytes = maxSizeInBytes;
+	}
+
+	/**
+	 * Locates the cache entry for a gold file rendered at a particular DPI.  Entries created for previous
+	 * versions of the same gold file are removed.
+	 *
+	 * @param goldFile
+	 * 	gold file whose rendered pages are wanted
+	 * @param dpi
+	 * 	resolution the pages are rendered at
+	 * @return the cache entry (which may not contain any pages yet)
+	 * @throws IOException if the gold file cannot be read
+	 */
+	/*package*/ Entry entryFor(Path goldFile, int dpi) throws IOException {
+		String digest = digestOf(goldFile);
+		Path goldDir = cacheDir.resolve(goldDirName(goldFile));
+		invalidateOtherVersions(goldDir, digest);
+		return new Entry(this, goldDir.resolve(digest + "_" + dpi + "dpi_" + RENDERER_VERSION));
+	}
+
+	/**
+	 * Removes the least recently used pages until the cache is within its size cap.  The cache directory is only
+	 * walked if this hasn't been done before or pages written since then may have taken the cache over its cap.
+	 */
+	/*package*/ void trim() {
+		long size = estimatedSize.get();
+		if (size >= 0 && size <= maxSizeInBytes) {
+			return;
+		}
+		if (!Files.isDirectory(cacheDir)) {
+			estimatedSize.compareAndSet(size, 0);
+			return;
+		}
+		List<CachedFile> files = new ArrayList<>();
+		try (Stream<Path> paths = Files.walk(cacheDir)) {
+			paths.filter(p->!p.getFileName().toString().endsWith(TEMP_FILE_EXTENSION))	// leave in-progress writes alone
+				 .forEach(p->CachedFile.of(p).ifPresent(files::add));
+		} catch (IOException | UncheckedIOException e) {
+			// Another process is probably trimming the cache at the same time, we'll get it next time.
+			return;
+		}
+		long totalSize = files.stream().mapToLong(CachedFile::size).sum();
+		if (totalSize <= maxSizeInBytes) {
+			estimatedSize.set(totalSize);
+			return;
+		}
+		files.sort(Comparator.comparing(CachedFile::lastAccessed));
+		for (CachedFile file : files) {
+			if (totalSize <= maxSizeInBytes) {
+				break;
+			}
+			deleteQuietly(file.path());
+			totalSize -= file.size();
+		}
+		estimatedSize.set(totalSize);
+	}
+
+	// Adds a newly written file to the running total (once the directory has been walked to establish it).
+	private void written(long bytes) {
+		estimatedSize.getAndUpdate(size->size < 0 ? size : size + bytes);
+	}
+
+	/**
+	 * A set of cached pages for one version of a gold file at one DPI.
+	 */
+	/*package*/ static class Entry {
+		private final GoldPageCache cache;
+		private final Path entryDir;
+
+		private Entry(GoldPageCache cache, Path entryDir) {
+			this.cache = cache;
+			this.entryDir = entryDir;
+		}
+
+		/**
+		 * @return the number of pages in the gold file, if it has been recorded.
+		 */
+		/*package*/ OptionalInt pageCount() {
+			Path pageCountFile = entryDir.resolve(PAGE_COUNT_FILENAME);
+			try {
+				return OptionalInt.of(Integer.parseInt(Files.readString(pageCountFile, StandardCharsets.US_ASCII).trim()));
+			} catch (NoSuchFileException e) {
+				return OptionalInt.empty();
+			} catch (IOException | NumberFormatException e) {
+				deleteQuietly(pageCountFile);
+				return OptionalInt.empty();
+			}
+		}
+
+		/*package*/ void storePageCount(int pageCount) throws IOException {
+			writeAtomically(entryDir.resolve(PAGE_COUNT_FILENAME), os->os.write(Integer.toString(pageCount).getBytes(StandardCharsets.US_ASCII)));
+		}
+
+		/**
+		 * Retrieves a rendered page from the cache.  A corrupted page is treated as missing.
+		 *
+		 * @param pageIndex
+		 * 	zero-based page index
+		 * @return the rendered page, if it is in the cache
+		 */
+		/*package*/ Optional<ImageWithDimension> page(int pageIndex) {
+			Path pageFile = pageFile(pageIndex);
+			try (DataInputStream is = new DataInputStream(new BufferedInputStream(new InflaterInputStream(Files.newInputStream(pageFile))))) {
+				ImageWithDimension page = readPage(is);
+				Files.setLastModifiedTime(pageFile, FileTime.fromMillis(System.currentTimeMillis()));
+				return Optional.of(page);
+			} catch (NoSuchFileException e) {
+				return Optional.empty();
+			} catch (IOException e) {
+				deleteQuietly(pageFile);
+				return Optional.empty();
+			}
+		}
+
+		/*package*/ void storePage(int pageIndex, ImageWithDimension page) throws IOException {
+			writeAtomically(pageFile(pageIndex), os->{
+				try (DataOutputStream dos = new DataOutputStream(new BufferedOutputStream(new DeflaterOutputStream(os)))) {
+					writePage(dos, page);
+				}
+			});
+		}
+
+		private Path pageFile(int pageIndex) {
+			return entryDir.resolve(String.format("%s%05d%s", PAGE_FILE_PREFIX, pageIndex, PAGE_FILE_EXTENSION));
+		}
+
+		private void writeAtomically(Path target, Writer writer) throws IOException {
+			Files.createDirectories(entryDir);
+			Path tempFile = Files.createTempFile(entryDir, target.getFileName().toString(), TEMP_FILE_EXTENSION);
+			try {
+				try (OutputStream os = Files.newOutputStream(tempFile)) {
+					writer.write(os);
+				}
+				long size = Files.size(tempFile);
+				try {
+					Files.move(tempFile, target, StandardCopyOption.ATOMIC_MOVE);
+				} catch (AtomicMoveNotSupportedException e) {
+					Files.move(tempFile, target, StandardCopyOption.REPLACE_EXISTING);
+				}
+				cache.written(size);
+			} finally {
+				deleteQuietly(tempFile);
+			}
+		}
+	}
+
+	@FunctionalInterface
+	private interface Writer {
+		void write(OutputStream os) throws IOException;
+	}
+
+	// Pages are stored as a small header followed by the raw pixels, one row at a time.  The raw raster elements
+	// are stored (rather than getRGB() values) because pdfcompare diffs the raster elements of the TYPE_INT_RGB
+	// images that it renders and those elements can contain alpha bits that getRGB() would not preserve.
+	private static void writePage(DataOutputStream os, ImageWithDimension page) throws IOException {
+		BufferedImage image = page.bufferedImage;
+		int width = image.getWidth();
+		int height = image.getHeight();
+		os.writeInt(PAGE_FILE_MAGIC);
+		os.writeInt(width);
+		os.writeInt(height);
+		os.writeFloat(page.width);
+		os.writeFloat(page.height);
+		ByteBuffer row = ByteBuffer.allocate(width * Integer.BYTES);
+		IntBuffer rowInts = row.asIntBuffer();
+		int[] pixels = image.getType() == BufferedImage.TYPE_INT_RGB ? ((DataBufferInt)image.getRaster().getDataBuffer()).getData() : null;
+		int[] rowPixels = pixels == null ? new int[width] : null;
+		for (int y = 0; y < height; y++) {
+			rowInts.clear();
+			if (pixels != null) {
+				rowInts.put(pixels, y * width, width);
+			} else {
+				image.getRGB(0, y, width, 1, rowPixels, 0, width);
+				rowInts.put(rowPixels);
+			}
+			os.write(row.array());
+		}
+	}
+
+	private static ImageWithDimension readPage(DataInputStream is) throws IOException {
+		if (is.readInt() != PAGE_FILE_MAGIC) {
+			throw new IOException("Not a cached page file.");
+		}
+		int width = is.readInt();
+		int height = is.readInt();
+		float pageWidth = is.readFloat();
+		float pageHeight = is.readFloat();
+		BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+		int[] pixels = ((DataBufferInt)image.getRaster().getDataBuffer()).getData();
+		byte[] row = new byte[width * Integer.BYTES];
+		IntBuffer rowInts = ByteBuffer.wrap(row).asIntBuffer();
+		for (int y = 0; y < height; y++) {
+			is.readFully(row);
+			rowInts.clear();
+			rowInts.get(pixels, y * width, width);
+		}
+		return new ImageWithDimension(image, pageWidth, pageHeight);
+	}
+
+	private static void invalidateOtherVersions(Path goldDir, String digest) {
+		if (!Files.isDirectory(goldDir)) {
+			return;
+		}
+		try (DirectoryStream<Path> entries = Files.newDirectoryStream(goldDir, p->!p.getFileName().toString().startsWith(digest + "_"))) {
+			entries.forEach(GoldPageCache::deleteRecursively);
+		} catch (IOException e) {
+			// Another process may be doing the same thing, what's left will get removed next time.
+		}
+	}
+
+	// Gold files in different directories may share the same name, so the directory for a gold file
+	// includes a hash of its full path.
+	private static String goldDirName(Path goldFile) {
+		Path absolutePath = goldFile.toAbsolutePath().normalize();
+		return absolutePath.getFileName().toString() + "_" + Integer.toHexString(absolutePath.toString().hashCode());
+	}
+
+	/*package*/ static String digestOf(Path file) throws IOException {
+		try (DigestInputStream is = new DigestInputStream(Files.newInputStream(file), MessageDigest.getInstance("SHA-256"))) {
+			is.transferTo(OutputStream.nullOutputStream());
+			return HexFormat.of().formatHex(is.getMessageDigest().digest());
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException("SHA-256 is not available", e);
+		}
+	}
+
+	private static String pdfCompareVersion() {
+		try (InputStream is = PdfComparator.class.getResourceAsStream("/META-INF/maven/de.redsix/pdfcompare/pom.properties")) {
+			Properties properties = new Properties();
+			if (is != null) {
+				properties.load(is);
+			}
+			return properties.getProperty("version", "unknown");
+		} catch (IOException e) {
+			return "unknown";
+		}
+	}
+
+	private static void deleteRecursively(Path dir) {
+		try (Stream<Path> paths = Files.walk(dir)) {
+			paths.sorted(Comparator.reverseOrder()).forEach(GoldPageCache::deleteQuietly);
+		} catch (IOException | UncheckedIOException e) {
+			// Another process may be doing the same thing, what's left will get removed next time.
+		}
+	}
+
+	private static void deleteQuietly(Path path) {
+		try {
+			Files.deleteIfExists(path);
+		} catch (IOException e) {
+			// eat it, we don't care.
+		}
+	}
+
+	private record CachedFile(Path path, long size, FileTime lastAccessed) {
+		private static Optional<CachedFile> of(Path path) {
+			try {
+				BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+				return attributes.isRegularFile() ? Optional.of(new CachedFile(path, attributes.size(), attributes.lastModifiedTime())) : Optional.empty();
+			} catch (IOException e) {
+				return Optional.empty();
+			}
+		}
+	}
+}
@@ -4,34 +4,57 @@ import static org.junit.jupiter.api.Assertions.*;
 
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
 import java.net.URI;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Set;
 
 import org.jsoup.Jsoup;
 import org.jsoup.nodes.Document;
 import org.jsoup.nodes.Element;
+import org.jsoup.parser.Parser;
+import org.jsoup.parser.StreamParser;
 import org.jsoup.select.Elements;
 
 /**
  * Object representing an AEM HTML5 Form
  * 
+ * An HtmlForm created by {@link #createHeadOnly(byte[], URI)} only parses the document's head to begin with, and only
+ * parses the (much larger) body if something needs it.
  *
  */
 public class HtmlForm {
 	private final Document doc;
+	private StreamParser bodyParser;	// Parses the rest of the document when it is needed, null once the document is complete
+	private volatile FieldLabels fieldLabels;	// Built on first use
 
 	private HtmlForm(Document doc) {
+		this(doc, null);
+	}
+
+	private HtmlForm(Document doc, StreamParser bodyParser) {
 		this.doc = doc;
+		this.bodyParser = bodyParser;
 	}
 
 	/**
 	 * Gets the String value of the text inside the Title element.
 	 * 
+	 * Only the document's head is needed (unless the title isn't in the head).
+	 * 
 	 * @return form title
 	 */
 	public String getTitle() {
 		Elements selectedElements = doc.getElementsByTag("title");
+		if (selectedElements.isEmpty()) {
+			selectedElements = completeDocument().getElementsByTag("title");
+		}
 		assertNotNull(selectedElements);
 		assertNotEquals(0, selectedElements.size());
 		Element titleElement = selectedElements.first();
@@ -56,15 +79,60 @@ public class HtmlForm {
 		return new HtmlForm(Jsoup.parse(new ByteArrayInputStream(html), StandardCharsets.UTF_8.toString(), baseUri.toString()));
 	}
 
+	/**
+	 * Static factory for HtmlForm object.  Creates an HtmlForm object that only parses the head of the document.
+	 * 
+	 * AEM HTML5 form pages can be several megabytes long, but some checks (such as the title) only need the head.
+	 * The document is parsed using a streaming parser that stops once the head is complete.  The rest of the
+	 * document is parsed, picking up where the streaming parser stopped, the first time that something needs the body.
+	 * 
+	 * @param html
+	 * 	bytes containing a valid HTML document
+	 * @param baseUri
+	 * 	the baseUri for the document
+	 * @return the queriable HtmlForm object
+	 * @throws IOException if there's an error while parsing the HTML bytes
+	 */
+	public static HtmlForm createHeadOnly(byte[] html, URI baseUri) throws IOException {
+		StreamParser parser = new StreamParser(Parser.htmlParser()).parse(new InputStreamReader(new ByteArrayInputStream(html), StandardCharsets.UTF_8), baseUri.toString());
+		// Elements are streamed as they are completed, so the head element arrives when the head ends.
+		Iterator<Element> elements = parser.iterator();
+		while (elements.hasNext()) {
+			if ("head".equals(elements.next().normalName())) {
+				return new HtmlForm(parser.document(), parser);
+			}
+		}
+		// The whole document was read looking for the head.
+		return new HtmlForm(parser.complete());
+	}
+
+	/*package*/ synchronized boolean isComplete() {
+		return bodyParser == null;
+	}
+
+	// Finishes parsing the document, if it hasn't been parsed completely, and returns it.
+	private synchronized Document completeDocument() {
+		if (bodyParser != null) {
+			try {
+				bodyParser.complete();
+			} catch (IOException e) {
+				throw new UncheckedIOException("Error while parsing HTML", e);
+			}
+			bodyParser = null;
+		}
+		return doc;
+	}
+
 	/**
 	 * Gets all the field Labels as Strings
 	 * 
+	 * The labels are only located once, the first time they are needed, but each call returns a new list that the
+	 * caller is free to modify.
+	 * 
 	 * @return List of field labels
 	 */
 	public List<String> getFieldLabels() {
-		Elements elements = doc.select("div.guideFieldLabel > label");
-		assertTrue(elements.size() > 0, "Couldn't find any field labels.");
-		return elements.eachText();
+		return new ArrayList<>(fieldLabels().labels());
 	}
 	
 	/**
@@ -75,7 +143,43 @@ public class HtmlForm {
 	 * @return true if the provided candidate is one of the field lanels
 	 */
 	public boolean hasFieldLabel(String candidate) {
-		long matches = getFieldLabels().stream().filter(candidate::equals).count();
-		return matches > 0;
+		return fieldLabels().index().contains(candidate);
+	}
+
+	/**
+	 * Checks if several field label Strings are all among the field labels for this form.
+	 * 
+	 * @param candidates
+	 * 	string labels that will be searched for
+	 * @return true if every one of the candidates is one of the field labels
+	 */
+	public boolean hasFieldLabels(Collection<String> candidates) {
+		return fieldLabels().index().containsAll(candidates);
 	}
+
+	/**
+	 * Finds the field label Strings that are not among the field labels for this form.
+	 * 
+	 * @param candidates
+	 * 	string labels that will be searched for
+	 * @return the candidates that are not field labels (in the order they were provided)
+	 */
+	public List<String> missingFieldLabels(Collection<String> candidates) {
+		Set<String> index = fieldLabels().index();
+		return candidates.stream().filter(c->!index.contains(c)).toList();
+	}
+
+	// Runs the field label selector once and indexes the results, so that looking up a label doesn't traverse the document.
+	private FieldLabels fieldLabels() {
+		FieldLabels labels = fieldLabels;
+		if (labels == null) {
+			List<String> elementText = completeDocument().select("div.guideFieldLabel > label").eachText();
+			labels = new FieldLabels(List.copyOf(elementText), new HashSet<>(elementText));
+			fieldLabels = labels;
+		}
+		assertTrue(labels.labels().size() > 0, "Couldn't find any field labels.");
+		return labels;
+	}
+
+	private record FieldLabels(List<String> labels, Set<String> index) {}
 }
\ No newline at end of file
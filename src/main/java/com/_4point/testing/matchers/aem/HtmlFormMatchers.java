@@ -1,5 +1,6 @@
 package com._4point.testing.matchers.aem;
 
+import java.util.Collection;
 import java.util.List;
 
 import org.hamcrest.Description;
@@ -44,6 +45,9 @@ public class HtmlFormMatchers {
 	/**
 	 * Creates a Matcher that validates that an HTML Form's title.  
 	 * 
+	 * Only the form's head is needed, so forms created using {@link HtmlForm#createHeadOnly(byte[], java.net.URI)}
+	 * never have their body parsed.
+	 * 
 	 * @param expectedTitle
 	 *   the expected value for the title
 	 * @return the matcher
@@ -62,11 +66,10 @@ public class HtmlFormMatchers {
 
 		@Override
 		protected boolean matchesSafely(HtmlForm item, Description mismatchDescription) {
-			List<String> fieldLabels = item.getFieldLabels();
-			boolean result = fieldLabels.stream().filter(expectedFieldLabel::equals).count() > 0;
+			boolean result = item.hasFieldLabel(expectedFieldLabel);
 			if (!result) {
 				mismatchDescription.appendText("field labels were ")
-								   .appendValueList("['", "','", "']", fieldLabels);
+								   .appendValueList("['", "','", "']", item.getFieldLabels());
 								   ;
 			}
 			return result;
@@ -90,4 +93,56 @@ public class HtmlFormMatchers {
 	public static TypeSafeDiagnosingMatcher<HtmlForm> containsFieldLabel(String expectedFieldLabel) {
 		return new ContainsFieldLabel(expectedFieldLabel);
 	}
+	
+	private static class ContainsFieldLabels extends TypeSafeDiagnosingMatcher<HtmlForm> {
+
+		private final List<String> expectedFieldLabels;
+		
+		private ContainsFieldLabels(List<String> expectedFieldLabels) {
+			this.expectedFieldLabels = expectedFieldLabels;
+		}
+
+		@Override
+		protected boolean matchesSafely(HtmlForm item, Description mismatchDescription) {
+			boolean result = item.hasFieldLabels(expectedFieldLabels);
+			if (!result) {
+				mismatchDescription.appendText("field labels ")
+								   .appendValueList("[", ", ", "]", item.missingFieldLabels(expectedFieldLabels))
+								   .appendText(" were missing");
+			}
+			return result;
+		}
+
+		@Override
+		public void describeTo(Description description) {
+			description.appendText("Page should have field labels ")
+			   			.appendValueList("[", ", ", "]", expectedFieldLabels);
+		}
+	}
+	
+	/**
+	 * Creates a Matcher that validates that an HTML Form has input fields with all of the specified field labels.
+	 * 
+	 * This is much quicker than combining a containsFieldLabel() matcher for each label, since the form's labels are
+	 * indexed and only need to be looked up.
+	 * 
+	 * @param expectedFieldLabels
+	 * 	field labels to match on
+	 * @return the matcher
+	 */
+	public static TypeSafeDiagnosingMatcher<HtmlForm> containsFieldLabels(String... expectedFieldLabels) {
+		return containsFieldLabels(List.of(expectedFieldLabels));
+	}
+	
+	/**
+	 * Creates a Matcher that validates that an HTML Form has input fields with all of the specified field labels.
+	 * 
+	 * @param expectedFieldLabels
+	 * 	field labels to match on
+	 * @return the matcher
+	 * @see #containsFieldLabels(String...)
+	 */
+	public static TypeSafeDiagnosingMatcher<HtmlForm> containsFieldLabels(Collection<String> expectedFieldLabels) {
+		return new ContainsFieldLabels(List.copyOf(expectedFieldLabels));
+	}
 }
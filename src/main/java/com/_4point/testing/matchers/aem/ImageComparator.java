@@ -0,0 +1,33 @@
+package com._4point.testing.matchers.aem;
+
+import java.awt.image.BufferedImage;
+import java.util.Optional;
+
+/**
+ * A way of comparing two images, used by {@link BufferedImageMatcher}.
+ */
+/*package*/ interface ImageComparator {
+
+	/**
+	 * Compares two images.
+	 *
+	 * @param expected
+	 * 	the expected image
+	 * @param actual
+	 * 	the actual image
+	 * @return a description of why the images don't match, or an empty Optional if they match
+	 */
+	Optional<String> compare(BufferedImage expected, BufferedImage actual);
+
+	/**
+	 * Creates an image that shows where two images that don't match differ.  This is only called after
+	 * {@link #compare(BufferedImage, BufferedImage)} has found that they don't match.
+	 *
+	 * @param expected
+	 * 	the expected image
+	 * @param actual
+	 * 	the actual image
+	 * @return an image showing the differences
+	 */
+	BufferedImage resultImage(BufferedImage expected, BufferedImage actual);
+}
@@ -0,0 +1,88 @@
+package com._4point.testing.matchers.aem;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * Records comparison timings as Java Flight Recorder events.
+ */
+/*package*/ class JfrComparisonListener implements PdfComparisonListener {
+	/*package*/ static final String COMPARISON_EVENT_NAME = "com._4point.testing.matchers.aem.PdfComparison";
+	/*package*/ static final String PAGE_EVENT_NAME = "com._4point.testing.matchers.aem.PdfComparisonPage";
+
+	@Override
+	public void comparisonCompleted(PdfComparisonTimings timings) {
+		ComparisonEvent comparisonEvent = new ComparisonEvent();
+		if (comparisonEvent.isEnabled()) {
+			comparisonEvent.goldFile = String.valueOf(timings.goldFile());
+			comparisonEvent.total = timings.total().toNanos();
+			comparisonEvent.parse = timings.phase(PdfComparisonTimings.Phase.PARSE).toNanos();
+			comparisonEvent.fingerprint = timings.phase(PdfComparisonTimings.Phase.FINGERPRINT).toNanos();
+			comparisonEvent.coarsePass = timings.phase(PdfComparisonTimings.Phase.COARSE_PASS).toNanos();
+			comparisonEvent.render = timings.phase(PdfComparisonTimings.Phase.RENDER).toNanos();
+			comparisonEvent.diff = timings.phase(PdfComparisonTimings.Phase.DIFF).toNanos();
+			comparisonEvent.artifacts = timings.phase(PdfComparisonTimings.Phase.ARTIFACTS).toNanos();
+			comparisonEvent.expectedPageCount = timings.expectedPageCount();
+			comparisonEvent.actualPageCount = timings.actualPageCount();
+			comparisonEvent.peakImageBytes = timings.peakImageBytes();
+			comparisonEvent.commit();
+		}
+		for (PdfComparisonTimings.PageTiming page : timings.pages()) {
+			PageEvent pageEvent = new PageEvent();
+			if (!pageEvent.isEnabled()) {
+				break;
+			}
+			pageEvent.goldFile = String.valueOf(timings.goldFile());
+			pageEvent.pageNumber = page.pageNumber();
+			pageEvent.render = page.render().toNanos();
+			pageEvent.diff = page.diff().toNanos();
+			pageEvent.commit();
+		}
+	}
+
+	@Name(COMPARISON_EVENT_NAME)
+	@Label("PDF Comparison")
+	@Category({"4Point", "PDF Comparison"})
+	static class ComparisonEvent extends Event {
+		@Label("Gold File")
+		String goldFile;
+		@Label("Total") @Timespan(Timespan.NANOSECONDS)
+		long total;
+		@Label("Parse") @Timespan(Timespan.NANOSECONDS)
+		long parse;
+		@Label("Fingerprint") @Timespan(Timespan.NANOSECONDS)
+		long fingerprint;
+		@Label("Coarse Pass") @Timespan(Timespan.NANOSECONDS)
+		long coarsePass;
+		@Label("Render") @Timespan(Timespan.NANOSECONDS)
+		long render;
+		@Label("Diff") @Timespan(Timespan.NANOSECONDS)
+		long diff;
+		@Label("Artifacts") @Timespan(Timespan.NANOSECONDS)
+		long artifacts;
+		@Label("Expected Page Count")
+		int expectedPageCount;
+		@Label("Actual Page Count")
+		int actualPageCount;
+		@Label("Peak Image Memory") @DataAmount
+		long peakImageBytes;
+	}
+
+	@Name(PAGE_EVENT_NAME)
+	@Label("PDF Comparison Page")
+	@Category({"4Point", "PDF Comparison"})
+	static class PageEvent extends Event {
+		@Label("Gold File")
+		String goldFile;
+		@Label("Page Number")
+		int pageNumber;
+		@Label("Render") @Timespan(Timespan.NANOSECONDS)
+		long render;
+		@Label("Diff") @Timespan(Timespan.NANOSECONDS)
+		long diff;
+	}
+}
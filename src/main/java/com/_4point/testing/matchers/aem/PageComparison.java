@@ -0,0 +1,310 @@
+package com._4point.testing.matchers.aem;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.awt.image.DataBuffer;
+import java.awt.image.DataBufferInt;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntPredicate;
+
+import com._4point.testing.matchers.aem.PdfComparisonTimings.Phase;
+
+import de.redsix.pdfcompare.CompareResultImpl;
+import de.redsix.pdfcompare.DiffImage;
+import de.redsix.pdfcompare.Exclusions;
+import de.redsix.pdfcompare.ImageTools;
+import de.redsix.pdfcompare.ImageWithDimension;
+import de.redsix.pdfcompare.PageExclusions;
+import de.redsix.pdfcompare.ResultCollector;
+import de.redsix.pdfcompare.env.Environment;
+
+/**
+ * Page by page comparison of two sets of rendered pages.
+ *
+ * This performs the same diff as pdfcompare's PdfComparator (using pdfcompare's DiffImage) but it gets its
+ * pages from {@link RenderedPages}, so pages can come from somewhere other than a freshly parsed PDF.
+ * 
+ * Comparisons can be restricted to a subset of the pages (for example, the pages whose {@link PageFingerprint}s
+ * differ).  Pages outside of that subset are neither rendered nor added to the results.
+ * 
+ * The time taken to diff each page and the memory occupied by the rendered pages are recorded in a {@link ComparisonTimer}.
+ * 
+ * When only the existence of differences is wanted ({@link #differs} and {@link #differingPages}), pages are
+ * scanned directly instead (using the same definition of a differing pixel as DiffImage) and each scan stops as
+ * soon as enough pixels differ, so no diff images are built.
+ * 
+ * If the environment allows parallel processing, the expected and actual versions of each page are
+ * rendered concurrently (as PdfComparator does).  Rendering blocks, so the expected pages are rendered on
+ * dedicated threads rather than on the common ForkJoinPool.
+ */
+/*package*/ class PageComparison {
+	private final Environment environment;
+	private final Exclusions exclusions;
+	private final ComparisonTimer timer;
+
+	/*package*/ PageComparison(Environment environment, Exclusions exclusions) {
+		this(environment, exclusions, new ComparisonTimer());
+	}
+
+	/*package*/ PageComparison(Environment environment, Exclusions exclusions, ComparisonTimer timer) {
+		this.environment = environment;
+		this.exclusions = exclusions;
+		this.timer = timer;
+	}
+
+	/**
+	 * Compares every page of the expected and actual documents, accumulating the results in the result
+	 * object provided.
+	 *
+	 * Pages that only exist in one of the documents are compared against a blank page, so they are always
+	 * reported as differences.
+	 *
+	 * @param <T>
+	 * 	type of the result object
+	 * @param expected
+	 * 	expected (gold) pages
+	 * @param actual
+	 * 	actual pages
+	 * @param result
+	 * 	object where the results are accumulated
+	 * @return the result object
+	 * @throws IOException if either document cannot be read or rendered
+	 */
+	/*package*/ <T extends CompareResultImpl> T compare(RenderedPages expected, RenderedPages actual, T result) throws IOException {
+		return compare(expected, actual, pageIndex->true, result);
+	}
+
+	/**
+	 * Compares the selected pages of the expected and actual documents, accumulating the results in the result
+	 * object provided.
+	 * 
+	 * @param <T>
+	 * 	type of the result object
+	 * @param expected
+	 * 	expected (gold) pages
+	 * @param actual
+	 * 	actual pages
+	 * @param pagesToCompare
+	 * 	selects the (zero-based) indexes of the pages to compare
+	 * @param result
+	 * 	object where the results are accumulated
+	 * @return the result object
+	 * @throws IOException if either document cannot be read or rendered
+	 */
+	/*package*/ <T extends CompareResultImpl> T compare(RenderedPages expected, RenderedPages actual, IntPredicate pagesToCompare, T result) throws IOException {
+		result.setEnvironment(environment);
+		int expectedPageCount = expected.pageCount();
+		int actualPageCount = actual.pageCount();
+		for (int pageIndex = 0; pageIndex < Math.max(expectedPageCount, actualPageCount); pageIndex++) {
+			if (!pagesToCompare.test(pageIndex)) {
+				continue;
+			}
+			PagePair pages = render(pageIndex < expectedPageCount ? expected : null, pageIndex < actualPageCount ? actual : null, pageIndex);
+			diff(pages.expected() != null ? pages.expected() : blank(pages.actual()),
+				 pages.actual() != null ? pages.actual() : blank(pages.expected()),
+				 pageIndex, result);
+		}
+		result.done();
+		return result;
+	}
+
+	/**
+	 * Determines whether the expected and actual documents differ.
+	 * 
+	 * This stops at the first difference found, so if the page counts differ no pages are rendered at all and
+	 * otherwise only the pages up to and including the first differing page are rendered.  No results are
+	 * accumulated.
+	 * 
+	 * @param expected
+	 * 	expected (gold) pages
+	 * @param actual
+	 * 	actual pages
+	 * @return true if a difference was found
+	 * @throws IOException if either document cannot be read or rendered
+	 */
+	/*package*/ boolean differs(RenderedPages expected, RenderedPages actual) throws IOException {
+		return differs(expected, actual, pageIndex->true);
+	}
+
+	/**
+	 * Determines whether the selected pages of the expected and actual documents differ, stopping at the first
+	 * difference found.
+	 * 
+	 * A selected page that only exists in one of the documents is a difference (and no pages are rendered).  Pages
+	 * that only exist in one of the documents but are not selected are ignored.
+	 * 
+	 * @param expected
+	 * 	expected (gold) pages
+	 * @param actual
+	 * 	actual pages
+	 * @param pagesToCompare
+	 * 	selects the (zero-based) indexes of the pages to compare
+	 * @return true if a difference was found
+	 * @throws IOException if either document cannot be read or rendered
+	 */
+	/*package*/ boolean differs(RenderedPages expected, RenderedPages actual, IntPredicate pagesToCompare) throws IOException {
+		int expectedPageCount = expected.pageCount();
+		int actualPageCount = actual.pageCount();
+		int commonPageCount = Math.min(expectedPageCount, actualPageCount);
+		for (int pageIndex = commonPageCount; pageIndex < Math.max(expectedPageCount, actualPageCount); pageIndex++) {
+			if (pagesToCompare.test(pageIndex)) {
+				return true;
+			}
+		}
+		for (int pageIndex = 0; pageIndex < commonPageCount; pageIndex++) {
+			if (!pagesToCompare.test(pageIndex)) {
+				continue;
+			}
+			PagePair pages = render(expected, actual, pageIndex);
+			if (pageDiffers(pages.expected(), pages.actual(), pageIndex)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Determines which of the selected pages differ.
+	 * 
+	 * Selected pages that only exist in one of the documents always differ (and are not rendered).  No results are
+	 * accumulated.
+	 * 
+	 * @param expected
+	 * 	expected (gold) pages
+	 * @param actual
+	 * 	actual pages
+	 * @param pagesToCompare
+	 * 	selects the (zero-based) indexes of the pages to compare
+	 * @return the indexes of the selected pages that differ
+	 * @throws IOException if either document cannot be read or rendered
+	 */
+	/*package*/ BitSet differingPages(RenderedPages expected, RenderedPages actual, IntPredicate pagesToCompare) throws IOException {
+		int expectedPageCount = expected.pageCount();
+		int actualPageCount = actual.pageCount();
+		int commonPageCount = Math.min(expectedPageCount, actualPageCount);
+		BitSet differingPages = new BitSet();
+		for (int pageIndex = 0; pageIndex < commonPageCount; pageIndex++) {
+			if (!pagesToCompare.test(pageIndex)) {
+				continue;
+			}
+			PagePair pages = render(expected, actual, pageIndex);
+			differingPages.set(pageIndex, pageDiffers(pages.expected(), pages.actual(), pageIndex));
+		}
+		for (int pageIndex = commonPageCount; pageIndex < Math.max(expectedPageCount, actualPageCount); pageIndex++) {
+			differingPages.set(pageIndex, pagesToCompare.test(pageIndex));
+		}
+		return differingPages;
+	}
+
+	private void diff(ImageWithDimension expected, ImageWithDimension actual, int pageIndex, ResultCollector collector) throws IOException {
+		timer.time(Phase.DIFF, pageIndex, ()->{
+			new DiffImage(expected, actual, pageIndex, environment, exclusions, collector).diffImages();
+			return null;
+		});
+	}
+
+	// Determines whether more pixels differ than the environment allows, as DiffImage would (pixels differ if their
+	// raster elements differ, pixels outside of either page are black and excluded pixels are ignored), but stops as
+	// soon as the allowance is exceeded.
+	private boolean pageDiffers(ImageWithDimension expectedPage, ImageWithDimension actualPage, int pageIndex) throws IOException {
+		return timer.time(Phase.DIFF, pageIndex, ()->{
+			BufferedImage expected = expectedPage.bufferedImage;
+			BufferedImage actual = actualPage.bufferedImage;
+			int width = Math.max(expected.getWidth(), actual.getWidth());
+			int height = Math.max(expected.getHeight(), actual.getHeight());
+			double allowedDifferentPixels = (double) width * height * environment.getAllowedDiffInPercent() / 100;
+			PageExclusions pageExclusions = exclusions.forPage(pageIndex + 1);
+			DataBuffer expectedBuffer = expected.getRaster().getDataBuffer();
+			DataBuffer actualBuffer = actual.getRaster().getDataBuffer();
+			long differentPixels = 0;
+			if (expected.getWidth() == actual.getWidth() && expected.getHeight() == actual.getHeight() 
+					&& expectedBuffer instanceof DataBufferInt expectedInts && expectedInts.getOffset() == 0 
+					&& actualBuffer instanceof DataBufferInt actualInts && actualInts.getOffset() == 0) {
+				// The usual case: skip straight from one differing pixel to the next.
+				int[] expectedPixels = expectedInts.getData();
+				int[] actualPixels = actualInts.getData();
+				int length = width * height;
+				for (int from = 0; from < length; from++) {
+					int mismatch = Arrays.mismatch(expectedPixels, from, length, actualPixels, from, length);
+					if (mismatch < 0) {
+						break;
+					}
+					from += mismatch;
+					if (!pageExclusions.contains(from % width, from / width) && ++differentPixels > allowedDifferentPixels) {
+						return true;
+					}
+				}
+				return false;
+			}
+			for (int y = 0; y < height; y++) {
+				for (int x = 0; x < width; x++) {
+					if (element(expected, expectedBuffer, x, y) != element(actual, actualBuffer, x, y) 
+							&& !pageExclusions.contains(x, y) && ++differentPixels > allowedDifferentPixels) {
+						return true;
+					}
+				}
+			}
+			return false;
+		});
+	}
+
+	private static int element(BufferedImage image, DataBuffer buffer, int x, int y) {
+		return x < image.getWidth() && y < image.getHeight() ? buffer.getElem(x + y * image.getWidth()) : 0;
+	}
+
+	// Renders the same page from both documents (a null document yields a null page).
+	private PagePair render(RenderedPages expected, RenderedPages actual, int pageIndex) throws IOException {
+		PagePair pages = renderPages(expected, actual, pageIndex);
+		timer.recordImages(pages.expected(), pages.actual());
+		return pages;
+	}
+
+	private PagePair renderPages(RenderedPages expected, RenderedPages actual, int pageIndex) throws IOException {
+		if (!environment.useParallelProcessing() || expected == null || actual == null) {
+			return new PagePair(expected != null ? expected.page(pageIndex) : null, actual != null ? actual.page(pageIndex) : null);
+		}
+		CompletableFuture<ImageWithDimension> expectedPage = CompletableFuture.supplyAsync(()->{
+			try {
+				return expected.page(pageIndex);
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}, Renderers.EXECUTOR);
+		ImageWithDimension actualPage = actual.page(pageIndex);
+		try {
+			return new PagePair(expectedPage.join(), actualPage);
+		} catch (CompletionException e) {
+			if (e.getCause() instanceof UncheckedIOException uioe) {
+				throw uioe.getCause();
+			}
+			throw e;
+		}
+	}
+
+	private record PagePair(ImageWithDimension expected, ImageWithDimension actual) {}
+
+	// Lazily started, so that no threads are started unless pages are rendered in parallel.
+	private static class Renderers {
+		private static final ExecutorService EXECUTOR = new ThreadPoolExecutor(0, Runtime.getRuntime().availableProcessors(), 
+																				  60, TimeUnit.SECONDS, new SynchronousQueue<>(), 
+																				  r->{
+																					  Thread thread = new Thread(r, "PdfComparer-page-renderer");
+																					  thread.setDaemon(true);
+																					  return thread;
+																				  }, 
+																				  new ThreadPoolExecutor.CallerRunsPolicy());	// When every renderer is busy, the caller renders the page.
+	}
+
+	private static ImageWithDimension blank(ImageWithDimension page) {
+		BufferedImage image = page.bufferedImage;
+		return new ImageWithDimension(ImageTools.blankImage(new BufferedImage(image.getWidth(), image.getHeight(), image.getType())), page.width, page.height);
+	}
+}
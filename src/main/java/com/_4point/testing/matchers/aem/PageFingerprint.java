@@ -0,0 +1,306 @@
+package com._4point.testing.matchers.aem;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.function.Function;
+import java.util.function.IntPredicate;
+
+import org.apache.pdfbox.cos.COSArray;
+import org.apache.pdfbox.cos.COSBase;
+import org.apache.pdfbox.cos.COSDictionary;
+import org.apache.pdfbox.cos.COSName;
+import org.apache.pdfbox.cos.COSObject;
+import org.apache.pdfbox.cos.COSStream;
+import org.apache.pdfbox.cos.COSString;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDResources;
+import org.apache.pdfbox.pdmodel.font.PDFont;
+import org.apache.pdfbox.pdmodel.graphics.PDXObject;
+import org.apache.pdfbox.pdmodel.graphics.form.PDFormXObject;
+import org.apache.pdfbox.pdmodel.graphics.image.PDImageXObject;
+import org.apache.pdfbox.pdmodel.interactive.annotation.PDAnnotation;
+import org.apache.pdfbox.pdmodel.interactive.annotation.PDAnnotationWidget;
+import org.apache.pdfbox.pdmodel.interactive.form.PDAcroForm;
+import org.apache.pdfbox.pdmodel.interactive.form.PDField;
+import org.apache.pdfbox.pdmodel.interactive.form.PDTerminalField;
+import org.apache.pdfbox.text.PDFTextStripper;
+
+/**
+ * A structural (non-raster) summary of a PDF page.
+ *
+ * Pages with equal fingerprints have the same page boxes, text, fonts, form field values, images, content stream,
+ * resources and annotations, so they render identically and do not need to be rasterized in order to be compared.
+ * 
+ * The resources and annotations are digested in full: every object that they refer to (such as form XObjects and
+ * their content streams, embedded font programs, graphics states, shadings, patterns, colour spaces and annotation
+ * appearance streams) is included, except for entries that don't affect how a page looks (such as metadata,
+ * modification dates and links to other parts of the document).
+ *
+ * @param mediaBox
+ * 	the page's media box
+ * @param cropBox
+ * 	the page's crop box
+ * @param rotation
+ * 	the page's rotation
+ * @param text
+ * 	text extracted from the page
+ * @param fonts
+ * 	names of the fonts used by the page
+ * @param fieldValues
+ * 	values of the AcroForm fields that have widgets on this page (keyed by fully qualified field name)
+ * @param imageDigests
+ * 	digests of the image XObjects used by the page
+ * @param contentDigest
+ * 	digest of the page's content stream
+ * @param resourcesDigest
+ * 	digest of the page's resources and everything that they refer to
+ * @param annotationsDigest
+ * 	digest of the page's annotations (including their appearance streams)
+ */
+/*package*/ record PageFingerprint(String mediaBox, String cropBox, int rotation, String text, Set<String> fonts,
+								   Map<String, String> fieldValues, List<String> imageDigests, String contentDigest,
+								   String resourcesDigest, String annotationsDigest) {
+	// Entries that don't affect how a page looks.  Several of them refer to other parts of the document, which would
+	// otherwise be digested as well.
+	private static final Set<COSName> IGNORED_KEYS = Set.of(COSName.P, COSName.PARENT, COSName.A, COSName.AA, COSName.DEST,
+															COSName.POPUP, COSName.IRT, COSName.STRUCT_PARENT, COSName.STRUCT_PARENTS,
+															COSName.NM, COSName.M, COSName.CREATION_DATE, COSName.LAST_MODIFIED,
+															COSName.METADATA, COSName.PIECE_INFO);
+
+	/**
+	 * Computes the fingerprints of all the pages in a document.
+	 *
+	 * @param doc
+	 * 	the document
+	 * @return the fingerprints (one per page, in page order)
+	 * @throws IOException if the document cannot be read
+	 */
+	/*package*/ static List<PageFingerprint> of(PDDocument doc) throws IOException {
+		Map<COSBase, PDField> widgetFields = widgetFields(doc);
+		Map<COSStream, byte[]> streamDigests = new IdentityHashMap<>();	// Fonts and images are often shared by many pages
+		PDFTextStripper textStripper = new PDFTextStripper();
+		List<PageFingerprint> fingerprints = new ArrayList<>(doc.getNumberOfPages());
+		int pageNumber = 1;
+		for (PDPage page : doc.getPages()) {
+			textStripper.setStartPage(pageNumber);
+			textStripper.setEndPage(pageNumber);
+			fingerprints.add(of(page, textStripper.getText(doc), widgetFields, streamDigests));
+			pageNumber++;
+		}
+		return fingerprints;
+	}
+
+	private static PageFingerprint of(PDPage page, String text, Map<COSBase, PDField> widgetFields, Map<COSStream, byte[]> streamDigests) throws IOException {
+		Set<String> fonts = new TreeSet<>();
+		List<String> imageDigests = new ArrayList<>();
+		collectResources(page.getResources(), fonts, imageDigests, Collections.newSetFromMap(new IdentityHashMap<>()));
+		Map<String, String> fieldValues = new TreeMap<>();
+		GraphDigest annotationsDigest = new GraphDigest(streamDigests);
+		for (PDAnnotation annotation : page.getAnnotations()) {
+			PDField field = widgetFields.get(annotation.getCOSObject());
+			if (field != null) {
+				fieldValues.put(field.getFullyQualifiedName(), field.getValueAsString());
+			}
+			annotationsDigest.add(annotation.getCOSObject());
+		}
+		GraphDigest resourcesDigest = new GraphDigest(streamDigests);
+		resourcesDigest.add(page.getCOSObject().getDictionaryObject(COSName.RESOURCES));
+		return new PageFingerprint(Objects.toString(page.getMediaBox()), Objects.toString(page.getCropBox()), page.getRotation(), text,
+								   Collections.unmodifiableSet(fonts), Collections.unmodifiableMap(fieldValues),
+								   Collections.unmodifiableList(imageDigests), page.hasContents() ? digestOf(page.getContents()) : "",
+								   resourcesDigest.value(), annotationsDigest.value());
+	}
+
+	/**
+	 * Lists the aspects of two page fingerprints that differ.
+	 *
+	 * @param other
+	 * 	the fingerprint to compare against
+	 * @return the names of the aspects that differ (an empty list if the fingerprints are equal)
+	 */
+	/*package*/ List<String> differencesFrom(PageFingerprint other) {
+		List<String> differences = new ArrayList<>();
+		addIfDifferent(differences, "page boxes", PageFingerprint::pageBoxes, other);
+		addIfDifferent(differences, "text", PageFingerprint::text, other);
+		addIfDifferent(differences, "fonts", PageFingerprint::fonts, other);
+		addIfDifferent(differences, "field values", PageFingerprint::fieldValues, other);
+		addIfDifferent(differences, "images", PageFingerprint::imageDigests, other);
+		addIfDifferent(differences, "content", PageFingerprint::contentDigest, other);
+		addIfDifferent(differences, "resources", PageFingerprint::resourcesDigest, other);
+		addIfDifferent(differences, "annotations", PageFingerprint::annotationsDigest, other);
+		return differences;
+	}
+
+	/**
+	 * Determines which pages of two documents have different fingerprints.  Pages that only exist in one of the
+	 * documents always differ.
+	 *
+	 * @param expected
+	 * 	fingerprints of the expected document
+	 * @param actual
+	 * 	fingerprints of the actual document
+	 * @return predicate that tests whether a (zero-based) page index has different fingerprints
+	 */
+	/*package*/ static IntPredicate differingPages(List<PageFingerprint> expected, List<PageFingerprint> actual) {
+		return pageIndex -> pageIndex >= expected.size() || pageIndex >= actual.size() || !expected.get(pageIndex).equals(actual.get(pageIndex));
+	}
+
+	private List<Object> pageBoxes() {
+		return List.of(mediaBox, cropBox, rotation);
+	}
+
+	private void addIfDifferent(List<String> differences, String aspect, Function<PageFingerprint, Object> accessor, PageFingerprint other) {
+		if (!Objects.equals(accessor.apply(this), accessor.apply(other))) {
+			differences.add(aspect);
+		}
+	}
+
+	// Fonts and images may be nested inside form XObjects, so the resources are walked recursively.
+	private static void collectResources(PDResources resources, Set<String> fonts, List<String> imageDigests, Set<COSBase> visited) throws IOException {
+		if (resources == null || !visited.add(resources.getCOSObject())) {
+			return;
+		}
+		for (COSName fontName : resources.getFontNames()) {
+			PDFont font = resources.getFont(fontName);
+			if (font != null) {
+				fonts.add(font.getName());
+			}
+		}
+		for (COSName xObjectName : resources.getXObjectNames()) {
+			PDXObject xObject = resources.getXObject(xObjectName);
+			if (xObject instanceof PDImageXObject image) {
+				try (InputStream is = image.getCOSObject().createRawInputStream()) {
+					imageDigests.add(digestOf(is));
+				}
+			} else if (xObject instanceof PDFormXObject form) {
+				collectResources(form.getResources(), fonts, imageDigests, visited);
+			}
+		}
+	}
+
+	// Maps each widget annotation's dictionary to the field it belongs to.
+	private static Map<COSBase, PDField> widgetFields(PDDocument doc) {
+		PDAcroForm acroForm = doc.getDocumentCatalog().getAcroForm();
+		if (acroForm == null) {
+			return Map.of();
+		}
+		Map<COSBase, PDField> widgetFields = new HashMap<>();
+		for (PDField field : acroForm.getFieldTree()) {
+			if (field instanceof PDTerminalField terminalField) {
+				for (PDAnnotationWidget widget : terminalField.getWidgets()) {
+					widgetFields.put(widget.getCOSObject(), field);
+				}
+			}
+		}
+		return widgetFields;
+	}
+
+	private static String digestOf(InputStream stream) throws IOException {
+		return HexFormat.of().formatHex(rawDigestOf(stream));
+	}
+
+	private static byte[] rawDigestOf(InputStream stream) throws IOException {
+		try (DigestInputStream is = new DigestInputStream(stream, newDigest())) {
+			is.transferTo(OutputStream.nullOutputStream());
+			return is.getMessageDigest().digest();
+		}
+	}
+
+	private static MessageDigest newDigest() {
+		try {
+			return MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException("SHA-256 is not available", e);
+		}
+	}
+
+	// Digest of everything reachable from some objects: dictionaries (in key order), arrays, scalar values and the raw
+	// (still encoded) data of streams.  An object that is reached more than once is only digested the first time
+	// (later it is digested as a reference to the first time), so shared objects and cycles are handled.
+	private static final class GraphDigest {
+		private final MessageDigest digest = newDigest();
+		private final Map<COSBase, Integer> visited = new IdentityHashMap<>();
+		private final Map<COSStream, byte[]> streamDigests;
+
+		private GraphDigest(Map<COSStream, byte[]> streamDigests) {
+			this.streamDigests = streamDigests;
+		}
+
+		private void add(COSBase object) throws IOException {
+			if (object instanceof COSObject reference) {
+				object = reference.getObject();
+			}
+			if (object == null) {
+				update("null");
+				return;
+			}
+			Integer previousVisit = visited.putIfAbsent(object, visited.size());
+			if (previousVisit != null) {
+				update("ref " + previousVisit);
+				return;
+			}
+			if (object instanceof COSDictionary dictionary) {
+				List<COSName> keys = new ArrayList<>(dictionary.keySet());
+				keys.removeAll(IGNORED_KEYS);
+				keys.sort(Comparator.comparing(COSName::getName));
+				update("<< " + keys.size());
+				for (COSName key : keys) {
+					update(key.getName());
+					add(dictionary.getItem(key));
+				}
+				if (dictionary instanceof COSStream stream) {
+					update("stream");
+					digest.update(streamDigest(stream));
+				}
+			} else if (object instanceof COSArray array) {
+				update("[ " + array.size());
+				for (int i = 0; i < array.size(); i++) {
+					add(array.get(i));
+				}
+			} else if (object instanceof COSString string) {
+				update("string " + string.getBytes().length);
+				digest.update(string.getBytes());
+			} else {
+				update(object.toString());
+			}
+		}
+
+		private byte[] streamDigest(COSStream stream) throws IOException {
+			byte[] streamDigest = streamDigests.get(stream);
+			if (streamDigest == null) {
+				try (InputStream is = stream.createRawInputStream()) {
+					streamDigest = rawDigestOf(is);
+				}
+				streamDigests.put(stream, streamDigest);
+			}
+			return streamDigest;
+		}
+
+		private void update(String token) {
+			digest.update(token.getBytes(StandardCharsets.UTF_8));
+			digest.update((byte) 0);
+		}
+
+		private String value() {
+			return HexFormat.of().formatHex(digest.digest());
+		}
+	}
+}
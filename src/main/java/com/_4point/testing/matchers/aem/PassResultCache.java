@@ -0,0 +1,205 @@
+package com._4point.testing.matchers.aem;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * On-disk record of comparisons that are known to pass, so that identical comparisons can be skipped.
+ *
+ * Each passing comparison is identified by a key that is a digest of the gold file, the actual result, the exclusions
+ * and the comparer's settings, so a change to any of them means the comparison is performed again.  Only passes are
+ * recorded.
+ *
+ * The cache is an append-only log of keys (one per line).  Appends are made under an exclusive file lock and reads under
+ * a shared lock, so several JVMs (e.g. forked test runners) can safely share the same cache file.  Each JVM keeps the keys
+ * it has read in memory and only reads the part of the log that has been appended since it last looked.
+ *
+ * So that the log does not grow without limit, it is compacted when it is first read if it contains duplicate keys
+ * (several JVMs can record the same pass at once) or more than the maximum number of keys (in which case the keys
+ * that were recorded longest ago are dropped).
+ */
+/*package*/ class PassResultCache {
+	private static final int KEY_LENGTH = 64;	// Hex encoded SHA-256
+	private static final int DEFAULT_MAX_ENTRIES = 100_000;	// About 6.5 MB of keys
+	// File locks are held by the JVM, so threads within a JVM have to be kept from locking the same file at once.
+	private static final ConcurrentHashMap<Path, Object> JVM_LOCKS = new ConcurrentHashMap<>();
+
+	private final Path cacheFile;
+	private final int maxEntries;
+	private final Object jvmLock;
+	private final Set<String> passes = ConcurrentHashMap.newKeySet();
+	private long bytesRead = 0;	// guarded by jvmLock
+
+	/**
+	 * @param cacheFile
+	 * 	file where the passing comparisons are recorded.  It is created if it does not already exist (but its directory must exist).
+	 */
+	/*package*/ PassResultCache(Path cacheFile) {
+		this(cacheFile, DEFAULT_MAX_ENTRIES);
+	}
+
+	/**
+	 * @param cacheFile
+	 * 	file where the passing comparisons are recorded.  It is created if it does not already exist (but its directory must exist).
+	 * @param maxEntries
+	 * 	maximum number of passes that are kept when the file is compacted
+	 */
+	/*package*/ PassResultCache(Path cacheFile, int maxEntries) {
+		if (cacheFile == null) {
+			throw new IllegalArgumentException("Pass result cache file cannot be null.");
+		}
+		if (maxEntries <= 0) {
+			throw new IllegalArgumentException("Maximum number of pass result cache entries must be greater than 0 (" + maxEntries + ").");
+		}
+		this.cacheFile = cacheFile.toAbsolutePath();
+		this.maxEntries = maxEntries;
+		this.jvmLock = JVM_LOCKS.computeIfAbsent(this.cacheFile, p->new Object());
+	}
+
+	/**
+	 * Computes the key that identifies a comparison.
+	 * 
+	 * @param goldFile
+	 * 	the gold file
+	 * @param actual
+	 * 	the actual result
+	 * @param exclusions
+	 * 	description of the exclusions
+	 * @param settings
+	 * 	description of any settings that can affect the outcome of the comparison
+	 * @return the key
+	 * @throws IOException if the gold file cannot be read
+	 */
+	/*package*/ static String keyFor(Path goldFile, byte[] actual, String exclusions, String settings) throws IOException {
+		try {
+			MessageDigest digest = MessageDigest.getInstance("SHA-256");
+			digest.update(GoldPageCache.digestOf(goldFile).getBytes(StandardCharsets.UTF_8));
+			digest.update((byte)0);
+			digest.update(MessageDigest.getInstance("SHA-256").digest(actual));
+			digest.update((byte)0);
+			digest.update(exclusions.getBytes(StandardCharsets.UTF_8));
+			digest.update((byte)0);
+			digest.update(settings.getBytes(StandardCharsets.UTF_8));
+			return HexFormat.of().formatHex(digest.digest());
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException("SHA-256 is not available", e);
+		}
+	}
+
+	/**
+	 * @param key
+	 * 	key of the comparison
+	 * @return true if the comparison is known to pass
+	 * @throws IOException if the cache file cannot be read
+	 */
+	/*package*/ boolean isKnownPass(String key) throws IOException {
+		if (passes.contains(key)) {
+			return true;
+		}
+		readNewEntries();
+		return passes.contains(key);
+	}
+
+	/**
+	 * Records that a comparison passed.
+	 * 
+	 * @param key
+	 * 	key of the comparison
+	 * @throws IOException if the cache file cannot be written
+	 */
+	/*package*/ void recordPass(String key) throws IOException {
+		if (!passes.add(key)) {
+			return;
+		}
+		synchronized (jvmLock) {
+			try (FileChannel channel = FileChannel.open(cacheFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+				channel.lock();	// Released when the channel is closed
+				ByteBuffer entry = ByteBuffer.wrap((key + "\n").getBytes(StandardCharsets.US_ASCII));
+				while (entry.hasRemaining()) {
+					channel.write(entry);
+				}
+			}
+		}
+	}
+
+	private void readNewEntries() throws IOException {
+		synchronized (jvmLock) {
+			boolean firstRead = bytesRead == 0;
+			List<String> entries;
+			try (FileChannel channel = FileChannel.open(cacheFile, StandardOpenOption.READ)) {
+				channel.lock(0, Long.MAX_VALUE, true);	// Released when the channel is closed
+				if (channel.size() < bytesRead) {
+					bytesRead = 0;	// Another JVM has compacted the log, so it has to be read again.
+				}
+				entries = readEntries(channel, bytesRead);
+				entries.forEach(passes::add);
+			} catch (NoSuchFileException e) {
+				return;	// Nothing has been recorded yet.
+			}
+			if (firstRead && (entries.size() > maxEntries || new LinkedHashSet<>(entries).size() < entries.size())) {
+				compact();
+			}
+		}
+	}
+
+	// Reads the complete entries after a position in the log (and moves bytesRead past them).  Entries that are 
+	// incomplete (e.g. because a writer died part way through) are ignored.
+	private List<String> readEntries(FileChannel channel, long position) throws IOException {
+		long size = channel.size();
+		List<String> entries = new ArrayList<>();
+		if (size <= position) {
+			return entries;
+		}
+		ByteBuffer newEntries = ByteBuffer.allocate(Math.toIntExact(size - position));
+		int bytesJustRead = 0;
+		while (newEntries.hasRemaining() && bytesJustRead >= 0) {
+			bytesJustRead = channel.read(newEntries, position + newEntries.position());
+		}
+		String text = new String(newEntries.array(), 0, newEntries.position(), StandardCharsets.US_ASCII);
+		int lastNewline = text.lastIndexOf('\n');
+		for (String entry : text.substring(0, lastNewline + 1).split("\n")) {
+			if (entry.length() == KEY_LENGTH) {
+				entries.add(entry);
+			}
+		}
+		bytesRead = position + lastNewline + 1;
+		return entries;
+	}
+
+	// Rewrites the log without duplicates, keeping only the most recently recorded maxEntries keys.  (Must be called
+	// while holding jvmLock.)  Other JVMs that have already read part of the log may then miss some of the entries
+	// that are appended later, which only costs them comparisons that could have been skipped.
+	private void compact() throws IOException {
+		try (FileChannel channel = FileChannel.open(cacheFile, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+			channel.lock();	// Released when the channel is closed
+			// The log is read again, as other JVMs may have appended to it since it was read.
+			Set<String> kept = new LinkedHashSet<>();
+			for (String entry : readEntries(channel, 0)) {
+				kept.remove(entry);	// Moves the entry to the end (the most recently recorded)
+				kept.add(entry);
+			}
+			List<String> keys = new ArrayList<>(kept);
+			StringBuilder compacted = new StringBuilder((KEY_LENGTH + 1) * Math.min(keys.size(), maxEntries));
+			keys.subList(Math.max(0, keys.size() - maxEntries), keys.size()).forEach(key->compacted.append(key).append('\n'));
+			ByteBuffer buffer = ByteBuffer.wrap(compacted.toString().getBytes(StandardCharsets.US_ASCII));
+			channel.truncate(0);
+			while (buffer.hasRemaining()) {
+				channel.write(buffer, buffer.position());
+			}
+			bytesRead = channel.size();
+		}
+	}
+}
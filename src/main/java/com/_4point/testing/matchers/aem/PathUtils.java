@@ -61,4 +61,22 @@ import java.nio.file.Path;
 		}
 		return replaceFilename(file.getParent(), newFilename + QUALIFIER_CHAR + newQualifier + (extension.isEmpty() ? "" : EXTENSION_CHAR + extension));
 	}
+
+	/**
+	 * Adds a qualifier to the end of a filename (after any existing qualifier) while keeping the original extension.
+	 * For example, foo_result.pdf becomes foo_result_diff.pdf.
+	 * 
+	 * Unlike {@link #replaceQualifier(Path, String)}, different filenames always yield different filenames.
+	 * 
+	 * @param file
+	 * 	original filename
+	 * @param newQualifier
+	 * 	qualifier to add
+	 * @return updated filename
+	 */
+	/*package*/ static Path addQualifier(Path file, String newQualifier) {
+		String extension = getExtension(file);
+		String newFilename = removeExtension(file.getFileName()).toString();
+		return replaceFilename(file.getParent(), newFilename + QUALIFIER_CHAR + newQualifier + (extension.isEmpty() ? "" : EXTENSION_CHAR + extension));
+	}
 }
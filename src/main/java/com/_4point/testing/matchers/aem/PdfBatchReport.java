@@ -0,0 +1,181 @@
+package com._4point.testing.matchers.aem;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Results of comparing a whole directory of PDFs against their gold files (see {@link PdfComparer#compareAll(Path)}).
+ *
+ * The report can be rendered as JSON (for tooling) or HTML (for people).
+ */
+public final class PdfBatchReport {
+
+	/**
+	 * Outcome of comparing a single file.
+	 */
+	public enum Status {
+		/** The file matches its gold file. */
+		MATCH,
+		/** The file differs from its gold file. */
+		DIFFERENT,
+		/** No gold file could be found for the file. */
+		NO_GOLD_FILE,
+		/** The file could not be compared. */
+		ERROR;
+	}
+
+	/**
+	 * Result of comparing a single file.
+	 * 
+	 * @param actualFile
+	 * 	the file that was compared
+	 * @param goldFile
+	 * 	the gold file it was compared against (null if there is no gold file)
+	 * @param status
+	 * 	the outcome of the comparison
+	 * @param duration
+	 * 	how long the comparison took
+	 * @param differingPages
+	 * 	the (one-based) numbers of the pages that differ
+	 * @param diffFile
+	 * 	the diff file written for the comparison (null if the files match)
+	 * @param resultFile
+	 * 	the copy of the actual file written for the comparison (null if the files match)
+	 * @param error
+	 * 	description of why the file could not be compared (null unless the status is NO_GOLD_FILE or ERROR)
+	 */
+	public record FileResult(Path actualFile, Path goldFile, Status status, Duration duration, List<Integer> differingPages, Path diffFile, Path resultFile, String error) {
+	}
+
+	private final Path goldResultsDir;
+	private final Path actualOutputsDir;
+	private final List<FileResult> results;
+	private final Duration elapsed;
+
+	/*package*/ PdfBatchReport(Path goldResultsDir, Path actualOutputsDir, List<FileResult> results, Duration elapsed) {
+		this.goldResultsDir = goldResultsDir;
+		this.actualOutputsDir = actualOutputsDir;
+		this.results = List.copyOf(results);
+		this.elapsed = elapsed;
+	}
+
+	/**
+	 * @return the results for each file (in filename order)
+	 */
+	public List<FileResult> results() {
+		return results;
+	}
+
+	/**
+	 * @return total (wall clock) time taken to compare all the files
+	 */
+	public Duration elapsed() {
+		return elapsed;
+	}
+
+	/**
+	 * @param status
+	 * 	outcome of interest
+	 * @return the number of files with that outcome
+	 */
+	public long count(Status status) {
+		return results.stream().filter(r->r.status() == status).count();
+	}
+
+	/**
+	 * @return true if every file matched its gold file
+	 */
+	public boolean allMatch() {
+		return count(Status.MATCH) == results.size();
+	}
+
+	/*package*/ String toJson() {
+		StringBuilder json = new StringBuilder();
+		json.append("{\n");
+		json.append("  \"goldResultsDir\": ").append(jsonString(goldResultsDir)).append(",\n");
+		json.append("  \"actualOutputsDir\": ").append(jsonString(actualOutputsDir)).append(",\n");
+		json.append("  \"elapsedMillis\": ").append(elapsed.toMillis()).append(",\n");
+		json.append("  \"summary\": {");
+		json.append(" \"total\": ").append(results.size());
+		for (Status status : Status.values()) {
+			json.append(", \"").append(status.name()).append("\": ").append(count(status));
+		}
+		json.append(" },\n");
+		json.append("  \"results\": [");
+		String separator = "\n";
+		for (FileResult result : results) {
+			json.append(separator).append("    { ");
+			json.append("\"actualFile\": ").append(jsonString(result.actualFile()));
+			json.append(", \"goldFile\": ").append(jsonString(result.goldFile()));
+			json.append(", \"status\": ").append(jsonString(result.status()));
+			json.append(", \"millis\": ").append(result.duration().toMillis());
+			json.append(", \"differingPages\": ").append(result.differingPages().stream().map(String::valueOf).collect(Collectors.joining(", ", "[", "]")));
+			json.append(", \"diffFile\": ").append(jsonString(result.diffFile()));
+			json.append(", \"resultFile\": ").append(jsonString(result.resultFile()));
+			json.append(", \"error\": ").append(jsonString(result.error()));
+			json.append(" }");
+			separator = ",\n";
+		}
+		json.append("\n  ]\n");
+		json.append("}\n");
+		return json.toString();
+	}
+
+	/**
+	 * @param reportDir
+	 * 	directory the HTML is written to (links to artifacts are relative to this directory)
+	 */
+	/*package*/ String toHtml(Path reportDir) {
+		Function<Path, String> link = p->p == null ? "" : "<a href=\"" + html(reportDir.toAbsolutePath().relativize(p.toAbsolutePath()).toString().replace('\\', '/')) + "\">" + html(p.getFileName()) + "</a>";
+		StringBuilder html = new StringBuilder();
+		html.append("<!DOCTYPE html>\n<html>\n<head>\n<meta charset=\"UTF-8\">\n<title>PDF Comparison Report</title>\n</head>\n<body>\n");
+		html.append("<h1>PDF Comparison Report</h1>\n");
+		html.append("<p>Gold results: ").append(html(goldResultsDir)).append("<br>\nActual outputs: ").append(html(actualOutputsDir)).append("</p>\n");
+		html.append("<p>").append(results.size()).append(" files compared in ").append(elapsed.toMillis()).append(" ms: ");
+		html.append(Arrays.stream(Status.values()).map(s->count(s) + " " + s.name()).collect(Collectors.joining(", "))).append("</p>\n");
+		html.append("<table border=\"1\">\n<tr><th>Actual</th><th>Gold</th><th>Status</th><th>Time (ms)</th><th>Differing Pages</th><th>Diff</th><th>Result</th><th>Error</th></tr>\n");
+		for (FileResult result : results) {
+			html.append("<tr>");
+			html.append("<td>").append(html(result.actualFile().getFileName())).append("</td>");
+			html.append("<td>").append(result.goldFile() == null ? "" : html(result.goldFile().getFileName())).append("</td>");
+			html.append("<td>").append(result.status()).append("</td>");
+			html.append("<td>").append(result.duration().toMillis()).append("</td>");
+			html.append("<td>").append(result.differingPages().stream().map(String::valueOf).collect(Collectors.joining(", "))).append("</td>");
+			html.append("<td>").append(link.apply(result.diffFile())).append("</td>");
+			html.append("<td>").append(link.apply(result.resultFile())).append("</td>");
+			html.append("<td>").append(html(result.error())).append("</td>");
+			html.append("</tr>\n");
+		}
+		html.append("</table>\n</body>\n</html>\n");
+		return html.toString();
+	}
+
+	private static String jsonString(Object value) {
+		if (value == null) {
+			return "null";
+		}
+		StringBuilder json = new StringBuilder("\"");
+		for (char c : value.toString().toCharArray()) {
+			switch (c) {
+				case '"' -> json.append("\\\"");
+				case '\\' -> json.append("\\\\");
+				case '\n' -> json.append("\\n");
+				case '\r' -> json.append("\\r");
+				case '\t' -> json.append("\\t");
+				default -> json.append(c < 0x20 ? String.format("\\u%04x", (int)c) : String.valueOf(c));
+			}
+		}
+		return json.append('"').toString();
+	}
+
+	private static String html(Object value) {
+		if (value == null) {
+			return "";
+		}
+		return value.toString().replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;").replace("\"", "&quot;");
+	}
+}
@@ -1,5 +1,7 @@
 package com._4point.testing.matchers.aem;
 
+import static com._4point.testing.matchers.aem.PathUtils.addQualifier;
+import static com._4point.testing.matchers.aem.PathUtils.getExtension;
 import static com._4point.testing.matchers.aem.PathUtils.replaceQualifier;
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -8,13 +10,35 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.IntPredicate;
 
 import org.hamcrest.Description;
 import org.hamcrest.Matcher;
 import org.hamcrest.TypeSafeDiagnosingMatcher;
 
+import com._4point.testing.matchers.aem.PdfComparisonTimings.Phase;
+
 import de.redsix.pdfcompare.CompareResult;
+import de.redsix.pdfcompare.CompareResultImpl;
+import de.redsix.pdfcompare.CompareResultWithMemoryOverflow;
+import de.redsix.pdfcompare.Exclusions;
+import de.redsix.pdfcompare.PageArea;
 import de.redsix.pdfcompare.PdfComparator;
+import de.redsix.pdfcompare.env.DefaultEnvironment;
+import de.redsix.pdfcompare.env.Environment;
+import de.redsix.pdfcompare.env.SimpleEnvironment;
 
 /**
  * PdfComparer is used to compare to PDFs for visual results (sort of a "digital lightbox").
@@ -26,6 +50,16 @@ public class PdfComparer {
 
 	private final Path goldResultsDir;
 	private final Path actualResultsDir;
+	private final GoldPageCache goldPageCache;
+	private final ComparisonMode comparisonMode;
+	private final CoarsePass coarsePass;
+	private final Path swapDirectory;
+	private final long maxHeapUsageInMB;
+	private final int batchParallelism;
+	private final ArtifactWriter artifactWriter;
+	private final PassResultCache passResultCache;
+	private final PdfComparisonListener listener;
+	private final Environment environment;
 	
 	/**
 	 * Constructs a PdfComparer
@@ -39,6 +73,11 @@ public class PdfComparer {
 	 *  be retained. 
 	 */
 	public PdfComparer(Path goldResultsDir, Path actualResultsDir) {
+		this(PdfComparerBuilder.instance(goldResultsDir, actualResultsDir));
+	}
+
+	private PdfComparer(PdfComparerBuilder builder) {
+		Path goldResultsDir = builder.goldResultsDir;
 		if (goldResultsDir != null && !Files.exists(goldResultsDir)){
 			throw new IllegalArgumentException("Expected (Gold) Results Directory does not exist.");
 		}
@@ -46,54 +85,365 @@ public class PdfComparer {
 			throw new IllegalArgumentException("Expected (Gold) Results Path does not point to a directory.");
 		}
 		this.goldResultsDir = goldResultsDir;
-		this.actualResultsDir = actualResultsDir;
+		this.actualResultsDir = builder.actualResultsDir;
+		this.goldPageCache = builder.goldPageCache;
+		this.comparisonMode = builder.comparisonMode;
+		this.coarsePass = builder.coarsePass;
+		this.swapDirectory = builder.swapDirectory;
+		this.maxHeapUsageInMB = builder.maxHeapUsageInMB;
+		this.batchParallelism = builder.batchParallelism;
+		this.artifactWriter = new ArtifactWriter(builder.writeArtifactsAsynchronously, builder.compressArtifacts);
+		this.passResultCache = builder.passResultCacheFile == null ? null : new PassResultCache(builder.passResultCacheFile);
+		this.listener = builder.listener;
+		this.environment = builder.environment();
 	}
 
 	/**
 	 * PDF Comparison helper routines.
 	 * 
 	 */
-	private void compare(Path goldFile, byte[] fileUnderTest) {
-		compare(goldFile, fileUnderTest, null);
+	private void compare(Path goldFile, byte[] fileUnderTest, Path exclusionFile, RegionsOfInterest regions) {
+		goldFile = resolveAgainstGoldDir(goldFile);
+		try {
+			ComparisonTimer timer = new ComparisonTimer();
+			CompareResult result = compare(goldFile, fileUnderTest, exclusionsFor(exclusionFile), regions, timer);
+			final Path finalGoldFile = goldFile;
+			Artifacts artifacts = timer.time(Phase.ARTIFACTS, ()->writeArtifacts(result, fileUnderTest, finalGoldFile));
+			report(timer, goldFile);
+			assertTrue(result.isEqual(), "Differences were found, Diff written to " + artifacts.diffFile().toString());
+		} catch (IOException e) {
+			throw new IllegalStateException("I/O error while comparing Pdfs", e);
+		}
+
 	}
 
-	private void compare(Path goldFile, byte[] fileUnderTest, Path exclusionFile) {
-		if (goldResultsDir!= null &&  !goldFile.isAbsolute()) {
-			goldFile = goldResultsDir.resolve(goldFile);
-		}
-		if (exclusionFile != null && !exclusionFile.isAbsolute()) {
-			exclusionFile = goldResultsDir.resolve(exclusionFile);
-		}
-		try (var goldIs = Files.newInputStream(goldFile);
-			 var exclIs = exclusionFile == null ? null : Files.newInputStream(exclusionFile)
-			) {
-			compare(goldIs, fileUnderTest, goldFile, exclIs);
+	// Stops at the first difference and never writes anything to the actual results directory.
+	private boolean differs(Path goldFile, byte[] fileUnderTest, Path exclusionFile, RegionsOfInterest regions) {
+		goldFile = resolveAgainstGoldDir(goldFile);
+		try {
+			ComparisonTimer timer = new ComparisonTimer();
+			Exclusions exclusions = exclusionsFor(exclusionFile);
+			String key = passResultCache != null ? passResultKey(goldFile, fileUnderTest, exclusions, regions) : null;
+			if (key != null && passResultCache.isKnownPass(key)) {
+				report(timer, goldFile);
+				return false;
+			}
+			try (RenderedPages expected = regions.mask(timer.timed(goldPages(goldFile, environment), true));
+				 RenderedPages actual = regions.mask(timer.timed(RenderedPages.of(fileUnderTest, environment), false))) {
+				boolean differs = new PageComparison(environment, exclusions, timer).differs(expected, actual, pagesToCompare(goldFile, fileUnderTest, expected, actual, exclusions, regions, timer));
+				if (key != null && !differs) {
+					passResultCache.recordPass(key);
+				}
+				report(timer, goldFile);
+				return differs;
+			} finally {
+				if (goldPageCache != null) {
+					goldPageCache.trim();
+				}
+			}
 		} catch (IOException e) {
 			throw new IllegalStateException("I/O error while comparing Pdfs", e);
 		}
+	}
+
+	private Path resolveAgainstGoldDir(Path file) {
+		return file != null && goldResultsDir != null && !file.isAbsolute() ? goldResultsDir.resolve(file) : file;
+	}
+
+	private Exclusions exclusionsFor(Path exclusionFile) throws IOException {
+		return exclusionFile == null ? new Exclusions(environment) : ExclusionsCache.shared().exclusionsFor(resolveAgainstGoldDir(exclusionFile), environment);
+	}
+
+	// Only the pages containing regions of interest need to be rendered.  In structural mode, only the pages whose structure
+	// differs need to be rendered and, if there is a coarse pass, only the pages that differ at the coarse resolution (or are 
+	// sampled) need to be rendered at full resolution.
+	private IntPredicate pagesToCompare(Path goldFile, byte[] fileUnderTestBytes, RenderedPages expected, RenderedPages actual, Exclusions exclusions, RegionsOfInterest regions, ComparisonTimer timer) throws IOException {
+		regions.checkPagesExist(expected.pageCount(), actual.pageCount());
+		IntPredicate candidates = comparisonMode == ComparisonMode.STRUCTURAL ? regions.pages().and(PageFingerprint.differingPages(expected.fingerprints(), actual.fingerprints())) 
+																			  : regions.pages();
+		if (coarsePass == null) {
+			return candidates;
+		}
+		Environment coarseEnvironment = coarsePass.environment(environment);
+		return timer.time(Phase.COARSE_PASS, ()->{
+			try (RenderedPages coarseExpected = goldPages(goldFile, coarseEnvironment);
+				 RenderedPages coarseActual = RenderedPages.of(fileUnderTestBytes, coarseEnvironment)) {
+				return coarsePass.pagesToCompare(coarseExpected, coarseActual, environment, exclusions, candidates);
+			}
+		});
+	}
+
+	private RenderedPages goldPages(Path goldFile, Environment environment) throws IOException {
+		return goldPageCache == null ? RenderedPages.of(goldFile, environment)
+									 : RenderedPages.of(goldFile, goldPageCache.entryFor(goldFile, environment.getDPI()), environment);
+	}
+
+	// Comparisons that are already known to pass are skipped (and new passes are recorded) when there is a pass result cache.
+	private CompareResult compare(Path goldFile, byte[] fileUnderTest, Exclusions exclusions, RegionsOfInterest regions, ComparisonTimer timer) throws IOException {
+		if (passResultCache == null) {
+			return compareFiles(goldFile, fileUnderTest, exclusions, regions, timer);
+		}
+		String key = passResultKey(goldFile, fileUnderTest, exclusions, regions);
+		if (passResultCache.isKnownPass(key)) {
+			return new CompareResultImpl();	// An empty result is equal.
+		}
+		CompareResult result = compareFiles(goldFile, fileUnderTest, exclusions, regions, timer);
+		if (result.isEqual()) {
+			passResultCache.recordPass(key);
+		}
+		return result;
+	}
+
+	private String passResultKey(Path goldFile, byte[] fileUnderTest, Exclusions exclusions, RegionsOfInterest regions) throws IOException {
+		String settings = "dpi=" + environment.getDPI() 
+						+ ", maxImageSize=" + environment.getMaxImageSize()
+						+ ", allowedDiffInPercent=" + environment.getAllowedDiffInPercent()
+						+ ", comparisonMode=" + comparisonMode
+						+ ", coarsePass=" + coarsePass
+						+ ", renderer=" + GoldPageCache.RENDERER_VERSION
+						+ ", regions=" + regions;
+		return PassResultCache.keyFor(goldFile, fileUnderTest, exclusions.asJson(), settings);
+	}
 
+	private CompareResult compareFiles(Path goldFile, byte[] fileUnderTest, Exclusions exclusions, RegionsOfInterest regions, ComparisonTimer timer) throws IOException {
+		if (swapDirectory != null) {
+			Files.createDirectories(swapDirectory);
+		}
+		if (goldPageCache == null && comparisonMode == ComparisonMode.RASTER && coarsePass == null && regions.isAll() && listener == null) {
+			try (var goldIs = Files.newInputStream(goldFile)) {
+				return compare(goldIs, fileUnderTest, exclusions);
+			}
+		}
+		return compareUsingPageComparison(goldFile, fileUnderTest, exclusions, regions, timer);
 	}
 
-	private void compare(InputStream goldFile, byte[] fileUnderTestBytes, Path filenameUnderTest, InputStream exclusions) throws IOException {
+	private CompareResult compare(InputStream goldFile, byte[] fileUnderTestBytes, Exclusions exclusions) throws IOException {
 		ByteArrayInputStream fileUnderTestStream = new ByteArrayInputStream(fileUnderTestBytes);
-//		LOG.info("Testing file '" + filenameUnderTest.getFileName().toString() + "'.");
-		final CompareResult result = exclusions == null ? new PdfComparator(goldFile, fileUnderTestStream).compare()
-				: new PdfComparator(goldFile, fileUnderTestStream).withIgnore(exclusions).compare();
-		Path diffFilename = replaceQualifier(filenameUnderTest, "diff");
+		PdfComparator<CompareResultImpl> comparator = new PdfComparator<>(goldFile, fileUnderTestStream, newResult()).withEnvironment(environment);
+		exclusions.forEach(comparator::withIgnore);
+		return comparator.compare();
+	}
+
+	// Compares page by page, so that gold pages can come from the gold page cache and pages can be skipped.
+	private CompareResult compareUsingPageComparison(Path goldFile, byte[] fileUnderTestBytes, Exclusions exclusions, RegionsOfInterest regions, ComparisonTimer timer) throws IOException {
+		try (RenderedPages expected = regions.mask(timer.timed(goldPages(goldFile, environment), true));
+			 RenderedPages actual = regions.mask(timer.timed(RenderedPages.of(fileUnderTestBytes, environment), false))) {
+			return new PageComparison(environment, exclusions, timer).compare(expected, actual, pagesToCompare(goldFile, fileUnderTestBytes, expected, actual, exclusions, regions, timer), newResult());
+		} finally {
+			if (goldPageCache != null) {
+				goldPageCache.trim();
+			}
+		}
+	}
+
+	private void report(ComparisonTimer timer, Path goldFile) {
+		if (listener != null) {
+			listener.comparisonCompleted(timer.finish(goldFile));
+		}
+	}
+
+	// When swapping is enabled, diff pages are swapped out to disk once heap usage reaches the limit.
+	private CompareResultImpl newResult() {
+		return swapDirectory == null ? new CompareResultImpl() : new CompareResultWithMemoryOverflow(maxHeapUsageInMB);
+	}
+
+	// Writes the diff file and a copy of the actual results, if there are differences.
+	private Artifacts writeArtifacts(CompareResult result, byte[] fileUnderTestBytes, Path filenameUnderTest) throws IOException {
+		return writeArtifacts(result, fileUnderTestBytes, replaceQualifier(filenameUnderTest, "diff"), replaceQualifier(filenameUnderTest, "result"));
+	}
+
+	private Artifacts writeArtifacts(CompareResult result, byte[] fileUnderTestBytes, Path diffFilename, Path resultFilename) throws IOException {
 		Path diffPath = actualResultsDir.resolve(diffFilename.getFileName());
+		Path resultPath = actualResultsDir.resolve(resultFilename.getFileName());
 		if (result.isNotEqual()) {
 			try {
 				Files.createDirectories(actualResultsDir);
 			} catch (IOException e) {
 				// eat it, we don't care.
 			}
-			result.writeTo(diffPath.toString());
-			fileUnderTestStream.reset();
-			Files.copy(fileUnderTestStream, actualResultsDir.resolve(replaceQualifier(filenameUnderTest, "result").getFileName()));
+			diffPath = artifactWriter.write(diffPath, result::writeTo);
+			resultPath = artifactWriter.write(resultPath, os->os.write(fileUnderTestBytes));
 		}
-		assertTrue(result.isEqual(), "Differences were found, Diff written to " + diffPath.toString());
+		return new Artifacts(diffPath, resultPath);
+	}
+
+	private record Artifacts(Path diffFile, Path resultFile) {}
+
+	/**
+	 * Compares every PDF in a directory against its gold file and writes a JSON (comparison-report.json) and HTML 
+	 * (comparison-report.html) summary of the results to the actual results directory.  Diff files are written
+	 * to the actual results directory as usual.
+	 * 
+	 * Each PDF is matched to the gold file with the same name or, failing that, to the only gold file with the
+	 * same name once any qualifier has been removed (for example, foo_result.pdf matches foo.pdf or foo_gold.pdf).
+	 * Files that are themselves diff files (foo_diff.pdf) are ignored.  The files are compared concurrently (see 
+	 * {@link PdfComparerBuilder#batchParallelism(int)}).
+	 * 
+	 * The artifacts written for a PDF that does not match are named after the PDF rather than the gold file (for 
+	 * example, foo_v2.pdf yields foo_v2_diff.pdf and foo_v2_result.pdf), so PDFs that match the same gold file 
+	 * don't overwrite each other's artifacts.
+	 * 
+	 * @param actualOutputsDir
+	 * 	directory containing the PDFs to compare.  This must not be the actual results directory.
+	 * @return the results
+	 */
+	public PdfBatchReport compareAll(Path actualOutputsDir) {
+		return compareAll(actualOutputsDir, null);
+	}
+
+	/**
+	 * Compares every PDF in a directory against its gold file, ignoring the areas listed in an exclusions file, 
+	 * and writes a summary of the results to the actual results directory (see {@link #compareAll(Path)}).
+	 * 
+	 * If the exclusions file path is relative, then it is relative to the "gold" directory.  The same exclusions 
+	 * apply to every PDF in the directory.
+	 * 
+	 * @param actualOutputsDir
+	 * 	directory containing the PDFs to compare.  This must not be the actual results directory.
+	 * @param exclusionsFile
+	 * 	path to the exclusions file (or null if nothing is excluded)
+	 * @return the results
+	 */
+	public PdfBatchReport compareAll(Path actualOutputsDir, Path exclusionsFile) {
+		if (actualResultsDir == null) {
+			throw new IllegalStateException("An actual results directory is required in order to compare a directory of files.");
+		}
+		if (actualOutputsDir.toAbsolutePath().normalize().equals(actualResultsDir.toAbsolutePath().normalize())) {
+			// The artifacts would be written amongst (and then compared as) the PDFs being compared.
+			throw new IllegalArgumentException("The directory of PDFs to compare must not be the actual results directory (" + actualResultsDir + ").");
+		}
+		try {
+			long start = System.nanoTime();
+			Exclusions exclusions = exclusionsFor(exclusionsFile);
+			Set<Path> goldFiles = new HashSet<>(pdfsIn(goldResultsDir));
+			Map<String, List<Path>> goldFilesByUnqualifiedName = new HashMap<>();
+			for (Path goldFile : goldFiles) {
+				goldFilesByUnqualifiedName.computeIfAbsent(unqualifiedName(goldFile), k->new ArrayList<>()).add(goldFile);
+			}
+			List<Path> actualFiles = pdfsIn(actualOutputsDir).stream()
+															 .filter(p->!replaceQualifier(p, "diff").equals(p))
+															 .toList();
+			ExecutorService workers = Executors.newFixedThreadPool(batchParallelism);
+			try {
+				List<Future<PdfBatchReport.FileResult>> futures = new ArrayList<>(actualFiles.size());
+				for (Path actualFile : actualFiles) {
+					futures.add(workers.submit(()->compareForBatch(actualFile, goldFiles, goldFilesByUnqualifiedName, exclusions)));
+				}
+				List<PdfBatchReport.FileResult> results = new ArrayList<>(futures.size());
+				for (Future<PdfBatchReport.FileResult> future : futures) {
+					results.add(future.get());
+				}
+				artifactWriter.flush();
+				PdfBatchReport report = new PdfBatchReport(goldResultsDir, actualOutputsDir, results, Duration.ofNanos(System.nanoTime() - start));
+				Files.createDirectories(actualResultsDir);
+				Files.writeString(actualResultsDir.resolve("comparison-report.json"), report.toJson());
+				Files.writeString(actualResultsDir.resolve("comparison-report.html"), report.toHtml(actualResultsDir));
+				return report;
+			} finally {
+				workers.shutdownNow();
+			}
+		} catch (IOException e) {
+			throw new IllegalStateException("I/O error while comparing Pdfs", e);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while comparing Pdfs", e);
+		} catch (ExecutionException e) {
+			throw new IllegalStateException("Error while comparing Pdfs", e.getCause());
+		}
+	}
+
+	private PdfBatchReport.FileResult compareForBatch(Path actualFile, Set<Path> goldFiles, Map<String, List<Path>> goldFilesByUnqualifiedName, Exclusions exclusions) {
+		long start = System.nanoTime();
+		Path exactMatch = goldResultsDir.resolve(actualFile.getFileName().toString());
+		List<Path> candidates = goldFiles.contains(exactMatch) ? List.of(exactMatch) : goldFilesByUnqualifiedName.getOrDefault(unqualifiedName(actualFile), List.of());
+		if (candidates.size() != 1) {
+			String error = candidates.isEmpty() ? "No gold file found." : "More than one possible gold file found: " + candidates.stream().map(p->p.getFileName().toString()).sorted().toList();
+			return new PdfBatchReport.FileResult(actualFile, null, PdfBatchReport.Status.NO_GOLD_FILE, Duration.ofNanos(System.nanoTime() - start), List.of(), null, null, error);
+		}
+		Path goldFile = candidates.get(0);
+		try {
+			ComparisonTimer timer = new ComparisonTimer();
+			byte[] fileUnderTest = Files.readAllBytes(actualFile);
+			CompareResult result = compare(goldFile, fileUnderTest, exclusions, RegionsOfInterest.ALL, timer);
+			Artifacts artifacts = timer.time(Phase.ARTIFACTS, ()->writeArtifacts(result, fileUnderTest, addQualifier(actualFile, "diff"), addQualifier(actualFile, "result")));
+			report(timer, goldFile);
+			Duration duration = Duration.ofNanos(System.nanoTime() - start);
+			return result.isEqual() ? new PdfBatchReport.FileResult(actualFile, goldFile, PdfBatchReport.Status.MATCH, duration, List.of(), null, null, null)
+									: new PdfBatchReport.FileResult(actualFile, goldFile, PdfBatchReport.Status.DIFFERENT, duration, result.getPagesWithDifferences().stream().sorted().toList(), artifacts.diffFile(), artifacts.resultFile(), null);
+		} catch (IOException | RuntimeException e) {
+			return new PdfBatchReport.FileResult(actualFile, goldFile, PdfBatchReport.Status.ERROR, Duration.ofNanos(System.nanoTime() - start), List.of(), null, null, e.toString());
+		}
+	}
+
+	private static List<Path> pdfsIn(Path dir) throws IOException {
+		try (var files = Files.list(dir)) {
+			return files.filter(Files::isRegularFile)
+						.filter(p->getExtension(p).equalsIgnoreCase("pdf"))
+						.sorted()
+						.toList();
+		}
+	}
+
+	// Filename with any qualifier removed (used to match actual files to gold files)
+	private static String unqualifiedName(Path file) {
+		return replaceQualifier(file.getFileName(), "").toString();
 	}
 	
+	private class ComparesEqual extends TypeSafeDiagnosingMatcher<byte[]> {
+		private final Path expectedResultFile;
+		private final Path exclusionsFile;
+		private final RegionsOfInterest regions;
+
+		private ComparesEqual(Path expectedResultFile, Path exclusionsFile, RegionsOfInterest regions) {
+			this.expectedResultFile = expectedResultFile;
+			this.exclusionsFile = exclusionsFile;
+			this.regions = regions;
+		}
+
+		@Override
+		public void describeTo(Description description) {
+			description.appendText("pdfs should match ");;
+			if (!regions.isAll()) {
+				description.appendText("in " + regions);
+			}
+		}
+
+		@Override
+		protected boolean matchesSafely(byte[] item, Description mismatchDescription) {
+			compare(expectedResultFile, item, exclusionsFile, regions);
+			return true;
+		}
+	}
+
+	private class ComparesNotEqual extends TypeSafeDiagnosingMatcher<byte[]> {
+		private final Path expectedResultFile;
+		private final Path exclusionsFile;
+		private final RegionsOfInterest regions;
+
+		private ComparesNotEqual(Path expectedResultFile, Path exclusionsFile, RegionsOfInterest regions) {
+			this.expectedResultFile = expectedResultFile;
+			this.exclusionsFile = exclusionsFile;
+			this.regions = regions;
+		}
+
+		@Override
+		public void describeTo(Description description) {
+			description.appendText("pdfs should not match ");
+			if (!regions.isAll()) {
+				description.appendText("in " + regions);
+			}
+		}
+
+		@Override
+		protected boolean matchesSafely(byte[] item, Description mismatchDescription) {
+			boolean result = differs(expectedResultFile, item, exclusionsFile, regions);
+			if (!result) {
+				mismatchDescription.appendText("no differences were found.");
+			}
+			return result;
+		}
+	}
+
 	/**
 	 * Creates a matcher that compares a PDF in a byte array to a expected "gold" result file.
 	 * 
@@ -107,19 +457,7 @@ public class PdfComparer {
 	 * @return the Matcher
 	 */
 	public Matcher<byte[]> comparesEqual(Path expectedResultFile) {
-		return new TypeSafeDiagnosingMatcher<byte[]>() {
-
-			@Override
-			public void describeTo(Description description) {
-				description.appendText("pdfs should match ");;
-			}
-
-			@Override
-			protected boolean matchesSafely(byte[] item, Description mismatchDescription) {
-				compare(expectedResultFile, item);
-				return true;
-			}
-		};
+		return new ComparesEqual(expectedResultFile, null, RegionsOfInterest.ALL);
 	}
 
 	/**
@@ -147,12 +485,15 @@ public class PdfComparer {
 	 * 
 	 * Nothing is written to the actual results directory regardless of the outcome of the match.
 	 * 
+	 * The comparison stops at the first difference found, so PDFs with different page counts are not rendered at 
+	 * all and otherwise pages after the first differing page are not rendered.
+	 * 
 	 * @param expectedResultFile
 	 * 	path to expected result file.
 	 * @return the Matcher
 	 */
 	public Matcher<byte[]> comparesNotEqual(Path expectedResultFile) {
-		throw new UnsupportedOperationException("Not implented yet.");
+		return new ComparesNotEqual(expectedResultFile, null, RegionsOfInterest.ALL);
 	}
 
 	/**
@@ -180,6 +521,10 @@ public class PdfComparer {
 	 * If the PDFs do not match, then the byte array is written to the actual results directory and a PDF
 	 * of the differences is also written to the actual results directory.
 	 * 
+	 * If the exclusions file path is relative, then it is also relative to the "gold" directory.  The exclusions
+	 * file uses pdfcompare's exclusions format and it is only parsed once (until it is modified), so the same
+	 * exclusions file can be used by many comparisons.
+	 * 
 	 * @param expectedResultFile
 	 * 	path to expected result file.
 	 * @param exclusionsFile
@@ -187,7 +532,7 @@ public class PdfComparer {
 	 * @return the Matcher
 	 */
 	public Matcher<byte[]> comparesEqual(Path expectedResultFile, Path exclusionsFile) {
-		return null;
+		return new ComparesEqual(expectedResultFile, exclusionsFile, RegionsOfInterest.ALL);
 	}
 
 	/**
@@ -224,7 +569,7 @@ public class PdfComparer {
 	 * @return the Matcher
 	 */
 	public Matcher<byte[]> comparesNotEqual(Path expectedResultFile, Path exclusionsFile) {
-		throw new UnsupportedOperationException("Not implented yet.");
+		return new ComparesNotEqual(expectedResultFile, exclusionsFile, RegionsOfInterest.ALL);
 	}
 
 	/**
@@ -245,4 +590,334 @@ public class PdfComparer {
 	public Matcher<byte[]> comparesNotEqual(String expectedResultFile, String exclusionsFile) {
 		return comparesNotEqual(Path.of(expectedResultFile), Path.of(exclusionsFile));
 	}
+
+	/**
+	 * Creates a matcher that compares selected pages or regions of a PDF in a byte array to the same pages or regions
+	 * of an expected "gold" result file.
+	 * 
+	 * If the expected "gold" result file path is relative, then it is relative to the "gold" directory.
+	 * 
+	 * Regions are specified using pdfcompare's PageArea (the same areas that are used for exclusions).  A PageArea with
+	 * just a (one-based) page number selects the whole page, a PageArea with a page number and coordinates selects a
+	 * rectangle (in pixels) on that page and a PageArea with just coordinates selects that rectangle on every page.  Only
+	 * the pages containing selected regions are rendered and anything outside the selected regions is ignored.
+	 * 
+	 * If the PDFs do not match, then the byte array is written to the actual results directory and a PDF
+	 * of the differences (showing just the selected regions) is also written to the actual results directory.
+	 * 
+	 * @param expectedResultFile
+	 * 	path to expected result file.
+	 * @param regions
+	 * 	the pages and/or regions to compare
+	 * @return the Matcher
+	 */
+	public Matcher<byte[]> comparesEqualIn(Path expectedResultFile, PageArea... regions) {
+		return new ComparesEqual(expectedResultFile, null, RegionsOfInterest.of(regions));
+	}
+
+	/**
+	 * Creates a matcher that compares selected pages or regions of a PDF in a byte array to the same pages or regions
+	 * of an expected "gold" result file and expects them to differ.
+	 * 
+	 * If the expected "gold" result file path is relative, then it is relative to the "gold" directory.
+	 * 
+	 * Regions are specified in the same way as for {@link #comparesEqualIn(Path, PageArea...)}.
+	 * 
+	 * Nothing is written to the actual results directory regardless of the outcome of the match.
+	 * 
+	 * @param expectedResultFile
+	 * 	path to expected result file.
+	 * @param regions
+	 * 	the pages and/or regions to compare
+	 * @return the Matcher
+	 */
+	public Matcher<byte[]> comparesNotEqualIn(Path expectedResultFile, PageArea... regions) {
+		return new ComparesNotEqual(expectedResultFile, null, RegionsOfInterest.of(regions));
+	}
+
+	/**
+	 * Waits for any diff artifacts that are still being written in the background (see 
+	 * {@link PdfComparerBuilder#writeArtifactsAsynchronously()}).  This is not required (pending artifacts are written before
+	 * the JVM exits) but it allows write failures to be reported.
+	 * 
+	 * @throws IllegalStateException if any of the artifacts could not be written
+	 */
+	public void flushArtifacts() {
+		artifactWriter.flush();
+	}
+
+	/**
+	 * Determines how a PdfComparer compares PDFs.
+	 *
+	 */
+	public enum ComparisonMode {
+		/**
+		 * Every page is rendered and compared pixel by pixel.
+		 */
+		RASTER,
+		/**
+		 * The structure of each page (page boxes, text, fonts, form field values, images and content) is compared first 
+		 * and only pages whose structure differs are rendered and compared pixel by pixel.  Pages with identical structure
+		 * are considered to match without being rendered.
+		 */
+		STRUCTURAL;
+	}
+
+	/**
+	 * Builder for PdfComparer objects that require more configuration than the PdfComparer constructor provides.
+	 *
+	 */
+	public static class PdfComparerBuilder {
+		private final Path goldResultsDir;
+		private final Path actualResultsDir;
+		private GoldPageCache goldPageCache;
+		private ComparisonMode comparisonMode = ComparisonMode.RASTER;
+		private CoarsePass coarsePass;
+		private Path swapDirectory;
+		private long maxHeapUsageInMB;
+		private Integer dpi;
+		private Integer maxImageSize;
+		private Boolean parallelProcessing;
+		private boolean writeArtifactsAsynchronously = false;
+		private boolean compressArtifacts = false;
+		private int batchParallelism = Runtime.getRuntime().availableProcessors();
+		private Path passResultCacheFile;
+		private PdfComparisonListener listener;
+
+		private PdfComparerBuilder(Path goldResultsDir, Path actualResultsDir) {
+			this.goldResultsDir = goldResultsDir;
+			this.actualResultsDir = actualResultsDir;
+		}
+
+		/**
+		 * Caches the rendered pages of the gold files on disk, so that subsequent comparisons only have to render the
+		 * actual results.
+		 * 
+		 * Cached pages are keyed by the gold file's contents, so changing a gold file automatically invalidates its cached
+		 * pages.  The cache directory can be shared between PdfComparers (and between JVMs).
+		 * 
+		 * @param cacheDir
+		 * 	directory where the rendered gold pages are stored.  This directory will be created if it does not already exist.
+		 * @param maxCacheSizeInBytes
+		 * 	maximum size of the cache.  The least recently used pages are removed when the cache grows beyond this size.
+		 * @return this builder
+		 */
+		public PdfComparerBuilder goldPageCache(Path cacheDir, long maxCacheSizeInBytes) {
+			this.goldPageCache = new GoldPageCache(cacheDir, maxCacheSizeInBytes);
+			return this;
+		}
+
+		/**
+		 * Sets how PDFs are compared.  The default is {@link ComparisonMode#RASTER}.
+		 * 
+		 * @param comparisonMode
+		 * 	the comparison mode
+		 * @return this builder
+		 */
+		public PdfComparerBuilder comparisonMode(ComparisonMode comparisonMode) {
+			this.comparisonMode = Objects.requireNonNull(comparisonMode, "Comparison mode cannot be null.");
+			return this;
+		}
+
+		/**
+		 * Adds a coarse-to-fine comparison.  Both PDFs are first rendered and compared at a low DPI and only the pages that
+		 * differ at the low DPI are compared (and written to the diff file) at full resolution.
+		 * 
+		 * Since small differences may not show up at a low DPI, a regular sample of the pages can also be compared at full
+		 * resolution.
+		 * 
+		 * @param coarseDpi
+		 * 	resolution used for the coarse comparison
+		 * @param sampleInterval
+		 * 	every sampleInterval'th page (starting with the first page) is compared at full resolution even if it
+		 *  matches at the coarse resolution.  Use 1 to compare every page at full resolution, or 0 to only compare
+		 *  pages that differ at the coarse resolution.
+		 * @return this builder
+		 */
+		public PdfComparerBuilder coarsePass(int coarseDpi, int sampleInterval) {
+			this.coarsePass = new CoarsePass(coarseDpi, sampleInterval);
+			return this;
+		}
+
+		/**
+		 * Sets the resolution that pages are rendered at.  The default is pdfcompare's default (300 DPI).
+		 * 
+		 * Lower resolutions use less memory but may miss small differences.
+		 * 
+		 * @param dpi
+		 * 	the rendering resolution
+		 * @return this builder
+		 */
+		public PdfComparerBuilder dpi(int dpi) {
+			if (dpi <= 0) {
+				throw new IllegalArgumentException("DPI must be greater than zero.");
+			}
+			this.dpi = dpi;
+			return this;
+		}
+
+		/**
+		 * Sets the maximum width or height (in pixels) of a rendered page.  Larger pages are rendered at a reduced
+		 * resolution so that they fit.  The default is pdfcompare's default.
+		 * 
+		 * @param maxImageSize
+		 * 	the maximum width or height of a rendered page
+		 * @return this builder
+		 */
+		public PdfComparerBuilder maxImageSize(int maxImageSize) {
+			if (maxImageSize <= 0) {
+				throw new IllegalArgumentException("Maximum image size must be greater than zero.");
+			}
+			this.maxImageSize = maxImageSize;
+			return this;
+		}
+
+		/**
+		 * Determines whether the expected and actual pages are rendered in parallel.  The default is pdfcompare's
+		 * default.
+		 * 
+		 * Parallel processing is faster but keeps more pages in memory at once.
+		 * 
+		 * @param parallelProcessing
+		 * 	true to render pages in parallel
+		 * @return this builder
+		 */
+		public PdfComparerBuilder parallelProcessing(boolean parallelProcessing) {
+			this.parallelProcessing = parallelProcessing;
+			return this;
+		}
+
+		/**
+		 * Bounds the memory used by comparisons of long documents by swapping compared pages out to disk.
+		 * 
+		 * Normally every compared page is held in memory until the comparison is complete.  With swapping enabled,
+		 * the pages held so far are written to the swap directory whenever heap usage reaches the limit.
+		 * 
+		 * @param swapDirectory
+		 * 	directory where the swapped pages are written.  This directory will be created if it does not already exist.
+		 * @param maxHeapUsageInMB
+		 * 	heap usage (in megabytes) at which pages are swapped out to disk
+		 * @return this builder
+		 */
+		public PdfComparerBuilder swapToDisk(Path swapDirectory, long maxHeapUsageInMB) {
+			if (maxHeapUsageInMB <= 0) {
+				throw new IllegalArgumentException("Maximum heap usage must be greater than zero.");
+			}
+			this.swapDirectory = Objects.requireNonNull(swapDirectory, "Swap directory cannot be null.");
+			this.maxHeapUsageInMB = maxHeapUsageInMB;
+			return this;
+		}
+
+		/**
+		 * Writes the artifacts of failed comparisons (the diff file and the copy of the actual result) in the background,
+		 * so that failures are reported without waiting for the artifacts to be written.
+		 * 
+		 * The number of artifacts waiting to be written is bounded (when the background writers fall behind, the test
+		 * thread writes the artifacts itself) and any pending artifacts are written before the JVM exits.  Use
+		 * {@link PdfComparer#flushArtifacts()} to wait for them explicitly.
+		 * 
+		 * @return this builder
+		 */
+		public PdfComparerBuilder writeArtifactsAsynchronously() {
+			this.writeArtifactsAsynchronously = true;
+			return this;
+		}
+
+		/**
+		 * Gzip compresses the artifacts of failed comparisons.  ".gz" is appended to the artifact filenames.
+		 * 
+		 * @return this builder
+		 */
+		public PdfComparerBuilder compressArtifacts() {
+			this.compressArtifacts = true;
+			return this;
+		}
+
+		/**
+		 * Sets the number of files that {@link PdfComparer#compareAll(Path)} compares concurrently.  The default is the
+		 * number of available processors.
+		 * 
+		 * @param batchParallelism
+		 * 	the number of concurrent comparisons
+		 * @return this builder
+		 */
+		public PdfComparerBuilder batchParallelism(int batchParallelism) {
+			if (batchParallelism <= 0) {
+				throw new IllegalArgumentException("Batch parallelism must be greater than zero.");
+			}
+			this.batchParallelism = batchParallelism;
+			return this;
+		}
+
+		/**
+		 * Records comparisons that pass in a file, so that comparing the same actual result against the same gold file (with
+		 * the same exclusions and settings) again is skipped.  This is useful when builds often reproduce the outputs of a
+		 * previous build.
+		 * 
+		 * The cache file can be shared between PdfComparers (and between JVMs).
+		 * 
+		 * @param cacheFile
+		 * 	file where passing comparisons are recorded.  It is created if it does not already exist.
+		 * @return this builder
+		 */
+		public PdfComparerBuilder passResultCache(Path cacheFile) {
+			this.passResultCacheFile = Objects.requireNonNull(cacheFile, "Pass result cache file cannot be null.");
+			return this;
+		}
+
+		/**
+		 * Reports the timings of each comparison (per phase and per page), the page counts and the peak memory occupied
+		 * by rendered pages to a listener.  Use {@link PdfComparisonListener#jfr()} to record them as Java Flight Recorder
+		 * events.
+		 * 
+		 * Comparisons that have a listener are always performed page by page (rather than by pdfcompare's PdfComparator)
+		 * so that the individual phases can be timed.
+		 * 
+		 * @param listener
+		 * 	the listener
+		 * @return this builder
+		 */
+		public PdfComparerBuilder comparisonListener(PdfComparisonListener listener) {
+			this.listener = Objects.requireNonNull(listener, "Comparison listener cannot be null.");
+			return this;
+		}
+
+		// Settings that have not been made fall back to pdfcompare's defaults.
+		private Environment environment() {
+			SimpleEnvironment environment = new SimpleEnvironment(DefaultEnvironment.create());
+			if (dpi != null) {
+				environment.setDPI(dpi);
+			}
+			if (maxImageSize != null) {
+				environment.setMaxImageSize(maxImageSize);
+			}
+			if (parallelProcessing != null) {
+				environment.setParallelProcessing(parallelProcessing);
+			}
+			if (swapDirectory != null) {
+				environment.setTempDirectory(swapDirectory);
+			}
+			return environment;
+		}
+
+		/**
+		 * @return the PdfComparer
+		 */
+		public PdfComparer build() {
+			return new PdfComparer(this);
+		}
+
+		/**
+		 * Creates a PdfComparerBuilder.  The parameters have the same meaning as the parameters of the PdfComparer constructor.
+		 * 
+		 * @param goldResultsDir
+		 *  directory where the expected (gold) pdf result files will be.
+		 * @param actualResultsDir
+		 * 	directory where the actual results will be written along with diff comparison results.
+		 * @return the builder
+		 */
+		public static PdfComparerBuilder instance(Path goldResultsDir, Path actualResultsDir) {
+			return new PdfComparerBuilder(goldResultsDir, actualResultsDir);
+		}
+	}
 }
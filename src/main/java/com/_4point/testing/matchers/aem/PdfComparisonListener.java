@@ -0,0 +1,28 @@
+package com._4point.testing.matchers.aem;
+
+/**
+ * Receives the timings of PdfComparer comparisons (see {@link PdfComparer.PdfComparerBuilder#comparisonListener(PdfComparisonListener)}).
+ *
+ * Listeners may be called from several threads at once (for example, when comparing a whole directory).
+ */
+@FunctionalInterface
+public interface PdfComparisonListener {
+
+	/**
+	 * Called after each comparison completes (whether or not the PDFs matched).
+	 * 
+	 * @param timings
+	 * 	timings of the comparison
+	 */
+	void comparisonCompleted(PdfComparisonTimings timings);
+
+	/**
+	 * Creates a listener that records each comparison (and each page of each comparison) as Java Flight Recorder events.
+	 * The events are only recorded when a flight recording that enables them is running.
+	 * 
+	 * @return the listener
+	 */
+	static PdfComparisonListener jfr() {
+		return new JfrComparisonListener();
+	}
+}
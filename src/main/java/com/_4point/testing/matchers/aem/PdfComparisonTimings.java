@@ -0,0 +1,87 @@
+package com._4point.testing.matchers.aem;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Timings (and other statistics) for a single PdfComparer comparison.  These are passed to a {@link PdfComparisonListener}.
+ *
+ * Phase and page timings are summed across threads, so when pages are rendered in parallel the phase timings can add up
+ * to more than the total (wall clock) time.
+ * 
+ * @param goldFile
+ * 	the gold file the actual result was compared against
+ * @param total
+ * 	total (wall clock) time taken by the comparison
+ * @param phases
+ * 	time spent in each phase (phases that did not occur are absent)
+ * @param pages
+ * 	timings for each page that was rendered (in page order)
+ * @param expectedPageCount
+ * 	number of pages in the gold file (-1 if the gold file was never opened)
+ * @param actualPageCount
+ * 	number of pages in the actual result (-1 if the actual result was never opened)
+ * @param peakImageBytes
+ * 	largest amount of memory occupied by the rendered images of a single page (expected plus actual)
+ */
+public record PdfComparisonTimings(Path goldFile, Duration total, Map<PdfComparisonTimings.Phase, Duration> phases, List<PdfComparisonTimings.PageTiming> pages, 
+								   int expectedPageCount, int actualPageCount, long peakImageBytes) {
+
+	/**
+	 * The phases of a comparison.
+	 */
+	public enum Phase {
+		/** Parsing the PDFs. */
+		PARSE,
+		/** Computing the structural fingerprints of the pages (see {@link PdfComparer.ComparisonMode#STRUCTURAL}). */
+		FINGERPRINT,
+		/** The low resolution comparison (see {@link PdfComparer.PdfComparerBuilder#coarsePass(int, int)}). */
+		COARSE_PASS,
+		/** Rendering the pages. */
+		RENDER,
+		/** Comparing the pixels of the rendered pages. */
+		DIFF,
+		/** Writing the diff artifacts. */
+		ARTIFACTS;
+	}
+
+	/**
+	 * Timings for a single page.
+	 * 
+	 * @param pageNumber
+	 * 	one-based page number
+	 * @param render
+	 * 	time spent rendering the page (expected plus actual)
+	 * @param diff
+	 * 	time spent comparing the page's pixels
+	 */
+	public record PageTiming(int pageNumber, Duration render, Duration diff) {
+		/**
+		 * @return total time spent on the page
+		 */
+		public Duration total() {
+			return render.plus(diff);
+		}
+	}
+
+	/**
+	 * @param phase
+	 * 	phase of interest
+	 * @return the time spent in the phase (zero if the phase did not occur)
+	 */
+	public Duration phase(Phase phase) {
+		return phases.getOrDefault(phase, Duration.ZERO);
+	}
+
+	/**
+	 * @param count
+	 * 	maximum number of pages to return
+	 * @return the slowest pages (slowest first)
+	 */
+	public List<PageTiming> slowestPages(int count) {
+		return pages.stream().sorted(Comparator.comparing(PageTiming::total).reversed()).limit(count).toList();
+	}
+}
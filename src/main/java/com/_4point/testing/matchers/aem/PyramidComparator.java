@@ -0,0 +1,112 @@
+package com._4point.testing.matchers.aem;
+
+import java.awt.image.BufferedImage;
+import java.util.Optional;
+
+/**
+ * A {@link RasterComparator} whose mismatch descriptions say roughly where the images differ.
+ *
+ * The images are compared at full resolution as usual.  If they don't match, the differences between them are reduced
+ * to one level of an image pyramid: each scale x scale block of pixels is replaced by the sum of the absolute
+ * differences of its pixels' red, green and blue values (excluded pixels are left out of the sums).  The blocks whose
+ * sums aren't zero show roughly where the images differ, so the mismatch description includes the area that they
+ * cover.  (The differences are absolute so that differences in opposite directions, such as two pixels that have been
+ * swapped, can't cancel each other out.)
+ *
+ * The level is only built once the full resolution comparison has failed.  Building it reads every pixel of both
+ * images, which costs far more than the full resolution comparison (that compares whole rows at a time and stops as
+ * soon as the allowance for differing pixels is exceeded), so it isn't worth making as a quick check beforehand.
+ */
+/*package*/ final class PyramidComparator implements ImageComparator {
+	/*package*/ static final int DEFAULT_SCALE = 8;
+
+	private final RasterComparator fullResolution;
+	private final int scale;
+
+	/**
+	 * @param fullResolution
+	 * 	comparator that compares the images.  Its exclusions also apply to the coarse level.
+	 * @param scale
+	 * 	width and height (in pixels) of the blocks that are averaged
+	 */
+	/*package*/ PyramidComparator(RasterComparator fullResolution, int scale) {
+		if (scale < 2 || scale > 256) {
+			throw new IllegalArgumentException("Scale must be between 2 and 256 (" + scale + ").");
+		}
+		this.fullResolution = fullResolution;
+		this.scale = scale;
+	}
+
+	@Override
+	public Optional<String> compare(BufferedImage expected, BufferedImage actual) {
+		Optional<String> mismatch = fullResolution.compare(expected, actual);
+		if (mismatch.isEmpty() || expected.getWidth() != actual.getWidth() || expected.getHeight() != actual.getHeight()) {
+			return mismatch;
+		}
+		return Optional.of("image does not match" + new Level(expected, actual).hint().orElse("") + ".");
+	}
+
+	@Override
+	public BufferedImage resultImage(BufferedImage expected, BufferedImage actual) {
+		return fullResolution.resultImage(expected, actual);
+	}
+
+	// The differences between the blocks of two images of the same size.
+	private class Level {
+		private final int width;
+		private final int height;
+		private final int columns;
+		private final int rows;
+		// Sums of the absolute differences of each block's pixels' channels
+		private final long[] diffs;
+
+		private Level(BufferedImage expected, BufferedImage actual) {
+			this.width = expected.getWidth();
+			this.height = expected.getHeight();
+			this.columns = (width + scale - 1) / scale;
+			this.rows = (height + scale - 1) / scale;
+			this.diffs = new long[columns * rows];
+			ExclusionMask.Spans spans = fullResolution.spans(width, height);
+			int[] expectedRow = new int[width];
+			int[] actualRow = new int[width];
+			for (int y = 0; y < height; y++) {
+				expected.getRGB(0, y, width, 1, expectedRow, 0, width);
+				actual.getRGB(0, y, width, 1, actualRow, 0, width);
+				int firstBlock = y / scale * columns;
+				int[] row = spans.row(y);
+				for (int span = 0; span < row.length; span += 2) {
+					for (int x = row[span]; x < row[span + 1]; x++) {
+						int e = expectedRow[x];
+						int a = actualRow[x];
+						diffs[firstBlock + x / scale] += Math.abs(((e >> 16) & 0xFF) - ((a >> 16) & 0xFF))
+													   + Math.abs(((e >> 8) & 0xFF) - ((a >> 8) & 0xFF))
+													   + Math.abs((e & 0xFF) - (a & 0xFF));
+					}
+				}
+			}
+		}
+
+		// Describes the area covered by the blocks that differ, if there are any.
+		private Optional<String> hint() {
+			int minColumn = columns, minRow = rows, maxColumn = -1, maxRow = -1;
+			for (int block = 0; block < diffs.length; block++) {
+				if (diffs[block] != 0) {
+					int column = block % columns;
+					int row = block / columns;
+					minColumn = Math.min(minColumn, column);
+					maxColumn = Math.max(maxColumn, column);
+					minRow = Math.min(minRow, row);
+					maxRow = Math.max(maxRow, row);
+				}
+			}
+			if (maxColumn < 0) {
+				return Optional.empty();
+			}
+			int x = minColumn * scale;
+			int y = minRow * scale;
+			int areaWidth = Math.min((maxColumn + 1) * scale, width) - x;
+			int areaHeight = Math.min((maxRow + 1) * scale, height) - y;
+			return Optional.of(String.format(" (roughly in the %dx%d pixels at %d,%d)", areaWidth, areaHeight, x, y));
+		}
+	}
+}
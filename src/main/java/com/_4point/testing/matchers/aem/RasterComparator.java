@@ -0,0 +1,561 @@
+package com._4point.testing.matchers.aem;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.ColorModel;
+import java.awt.image.ComponentColorModel;
+import java.awt.image.DataBuffer;
+import java.awt.image.DataBufferByte;
+import java.awt.image.DataBufferInt;
+import java.awt.image.DirectColorModel;
+import java.awt.image.PixelInterleavedSampleModel;
+import java.awt.image.SinglePixelPackedSampleModel;
+import java.awt.image.WritableRaster;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Pixel by pixel comparison of two images that reads the images' backing arrays directly.
+ *
+ * By default the comparison uses the same rules as romankh3's ImageComparison: two pixels differ if the (squared)
+ * distance between their RGB values exceeds a tolerance, and two images match if the percentage of differing pixels
+ * does not exceed an allowance.  Unlike ImageComparison, it stops counting as soon as the allowance has been exceeded
+ * and it does not build a result image, so nothing is allocated while comparing on the calling thread.  Other
+ * {@link Tolerance}s (a per-channel threshold, a fixed number of pixels, comparing alpha) are evaluated in the same
+ * single pass.
+ *
+ * Images that store their pixels as packed ints (e.g. TYPE_INT_RGB, TYPE_INT_ARGB) or as interleaved sRGB bytes
+ * (e.g. TYPE_3BYTE_BGR, TYPE_4BYTE_ABGR) are read directly from their DataBuffers.  Any other pair of images is
+ * compared using {@link BufferedImage#getRGB(int, int)}.
+ * 
+ * Rendered pages are usually identical (or nearly so), so rows that are read directly are scanned for the next raw
+ * difference with {@link Arrays#mismatch(int[], int, int, int[], int, int)}, which the JVM implements using SIMD
+ * instructions.  Only the pixels where the raw data differs are then checked against the tolerance.
+ *
+ * Large images can be compared in parallel on a ForkJoinPool.  The images are split into bands of rows which are
+ * compared concurrently, with the differing pixel counts accumulated in a single shared total, so the allowance still
+ * applies to the image as a whole and every band stops as soon as the shared total exceeds it.
+ *
+ * Areas of the images can be excluded from the comparison with an {@link ExclusionMask}.  The mask is compiled into
+ * runs of compared pixels once, and each row is then scanned a run at a time, so excluded pixels are simply skipped.
+ * The allowance is still calculated from the total number of pixels in the images.
+ */
+/*package*/ final class RasterComparator implements ImageComparator {
+	private static final Optional<String> IMAGE_MISMATCH = Optional.of("image does not match.");
+	private static final Optional<String> SIZE_MISMATCH = Optional.of("size does not match.");
+	private static final int RGB_MASK = 0x00FFFFFF;
+	private static final int ARGB_MASK = 0xFFFFFFFF;
+	private static final int OPAQUE = 0xFF000000;
+	/*package*/ static final int BAND_HEIGHT = 64;	// Rows per parallel task
+	private static final Color DIFFERENCE_COLOUR = Color.RED;
+	private static final Color EXCLUSION_COLOUR = Color.GRAY;
+
+	private final Tolerance tolerance;
+	private final double differenceThreshold;
+	private final int compareMask;
+	private final ExclusionMask exclusions;
+	private final ForkJoinPool pool;
+
+	/**
+	 * How different two images can be and still match.
+	 * 
+	 * @param pixelToleranceLevel
+	 * 	fraction (0-1) of the maximum distance between two pixels' RGB (or ARGB, if alpha is compared) values that they
+	 *  may be apart and still be considered the same.
+	 *  This is ignored if maxChannelDelta is set.
+	 * @param maxChannelDelta
+	 * 	maximum amount (0-255) that any one channel of two pixels may differ by and still be considered the same, or
+	 *  -1 to use the pixelToleranceLevel instead
+	 * @param allowedPercentOfDifferentPixels
+	 * 	percentage (0-100) of the pixels that may differ before the images are considered to be different.  This is
+	 *  ignored if allowedDifferentPixels is set.
+	 * @param allowedDifferentPixels
+	 * 	number of pixels that may differ before the images are considered to be different, or -1 to use the
+	 *  allowedPercentOfDifferentPixels instead
+	 * @param ignoreAlpha
+	 * 	true if only the RGB channels are compared, false if the alpha channel is compared too (images without an alpha
+	 *  channel are treated as opaque)
+	 */
+	/*package*/ record Tolerance(double pixelToleranceLevel, int maxChannelDelta, double allowedPercentOfDifferentPixels, long allowedDifferentPixels, boolean ignoreAlpha) {
+		/**
+		 * The tolerance that BufferedImageMatcher has always used: a small allowance of pixels to allow for font differences.
+		 */
+		/*package*/ static final Tolerance DEFAULT = new Tolerance(0.1, -1, 0.0001165, -1, true);
+
+		/*package*/ Tolerance {
+			if (pixelToleranceLevel < 0 || pixelToleranceLevel >= 1) {
+				throw new IllegalArgumentException("Pixel tolerance level must be at least 0 and less than 1 (" + pixelToleranceLevel + ").");
+			}
+			if (maxChannelDelta < -1 || maxChannelDelta > 255) {
+				throw new IllegalArgumentException("Maximum channel delta must be between 0 and 255 (" + maxChannelDelta + ").");
+			}
+			if (allowedPercentOfDifferentPixels < 0 || allowedPercentOfDifferentPixels > 100) {
+				throw new IllegalArgumentException("Allowed percent of different pixels must be between 0 and 100 (" + allowedPercentOfDifferentPixels + ").");
+			}
+			if (allowedDifferentPixels < -1) {
+				throw new IllegalArgumentException("Allowed number of different pixels cannot be negative (" + allowedDifferentPixels + ").");
+			}
+		}
+
+		/*package*/ Tolerance withPixelToleranceLevel(double pixelToleranceLevel) {
+			return new Tolerance(pixelToleranceLevel, -1, allowedPercentOfDifferentPixels, allowedDifferentPixels, ignoreAlpha);
+		}
+
+		/*package*/ Tolerance withMaxChannelDelta(int maxChannelDelta) {
+			if (maxChannelDelta < 0) {
+				throw new IllegalArgumentException("Maximum channel delta must be between 0 and 255 (" + maxChannelDelta + ").");
+			}
+			return new Tolerance(pixelToleranceLevel, maxChannelDelta, allowedPercentOfDifferentPixels, allowedDifferentPixels, ignoreAlpha);
+		}
+
+		/*package*/ Tolerance withAllowedPercentOfDifferentPixels(double allowedPercentOfDifferentPixels) {
+			return new Tolerance(pixelToleranceLevel, maxChannelDelta, allowedPercentOfDifferentPixels, -1, ignoreAlpha);
+		}
+
+		/*package*/ Tolerance withAllowedDifferentPixels(long allowedDifferentPixels) {
+			if (allowedDifferentPixels < 0) {
+				throw new IllegalArgumentException("Allowed number of different pixels cannot be negative (" + allowedDifferentPixels + ").");
+			}
+			return new Tolerance(pixelToleranceLevel, maxChannelDelta, allowedPercentOfDifferentPixels, allowedDifferentPixels, ignoreAlpha);
+		}
+
+		/*package*/ Tolerance withIgnoreAlpha(boolean ignoreAlpha) {
+			return new Tolerance(pixelToleranceLevel, maxChannelDelta, allowedPercentOfDifferentPixels, allowedDifferentPixels, ignoreAlpha);
+		}
+
+		/**
+		 * @param totalPixels
+		 * 	number of pixels in the images being compared
+		 * @return the number of pixels that may differ
+		 */
+		/*package*/ long allowedDifferentPixels(long totalPixels) {
+			return allowedDifferentPixels >= 0 ? allowedDifferentPixels : (long) Math.floor(totalPixels * allowedPercentOfDifferentPixels / 100);
+		}
+	}
+
+	/**
+	 * @param tolerance
+	 * 	how different the images may be
+	 */
+	/*package*/ RasterComparator(Tolerance tolerance) {
+		this(tolerance, null);
+	}
+
+	/**
+	 * @param tolerance
+	 * 	how different the images may be
+	 * @param pool
+	 * 	pool used to compare bands of rows in parallel, or null to compare images on the calling thread
+	 */
+	/*package*/ RasterComparator(Tolerance tolerance, ForkJoinPool pool) {
+		this(tolerance, ExclusionMask.NONE, pool);
+	}
+
+	/**
+	 * @param tolerance
+	 * 	how different the images may be
+	 * @param exclusions
+	 * 	areas of the images that are not compared
+	 * @param pool
+	 * 	pool used to compare bands of rows in parallel, or null to compare images on the calling thread
+	 */
+	/*package*/ RasterComparator(Tolerance tolerance, ExclusionMask exclusions, ForkJoinPool pool) {
+		this.tolerance = tolerance;
+		this.exclusions = exclusions;
+		double maxDistance = Math.sqrt(255 * 255 * (tolerance.ignoreAlpha() ? 3 : 4));
+		this.differenceThreshold = Math.pow(tolerance.pixelToleranceLevel() * maxDistance, 2);
+		this.compareMask = tolerance.ignoreAlpha() ? RGB_MASK : ARGB_MASK;
+		this.pool = pool;
+	}
+
+	/**
+	 * @return the tolerance used by this comparator
+	 */
+	/*package*/ Tolerance tolerance() {
+		return tolerance;
+	}
+
+	/**
+	 * @param width
+	 * 	width of the images being compared
+	 * @param height
+	 * 	height of the images being compared
+	 * @return the pixels that this comparator compares in images of that size
+	 */
+	/*package*/ ExclusionMask.Spans spans(int width, int height) {
+		return exclusions.spans(width, height);
+	}
+
+	@Override
+	public Optional<String> compare(BufferedImage expected, BufferedImage actual) {
+		if (expected.getWidth() != actual.getWidth() || expected.getHeight() != actual.getHeight()) {
+			return SIZE_MISMATCH;
+		}
+		long allowedDifferentPixels = tolerance.allowedDifferentPixels((long) expected.getWidth() * expected.getHeight());
+		return countDifferentPixels(expected, actual, allowedDifferentPixels) > allowedDifferentPixels ? IMAGE_MISMATCH : Optional.empty();
+	}
+
+	/**
+	 * Marks up a copy of the actual image: every pixel that differs (by this comparator's own tolerance, skipping the
+	 * excluded areas) is painted red and the area that they cover is outlined in red.  The excluded areas are outlined
+	 * in grey.
+	 * 
+	 * Images of different sizes can't be marked up, so the result is just the actual image.
+	 * 
+	 * This is only called once a comparison has failed, so the pixels are simply read using
+	 * {@link BufferedImage#getRGB(int, int, int, int, int[], int, int)}.
+	 */
+	@Override
+	public BufferedImage resultImage(BufferedImage expected, BufferedImage actual) {
+		if (expected.getWidth() != actual.getWidth() || expected.getHeight() != actual.getHeight()) {
+			return actual;
+		}
+		int width = actual.getWidth();
+		int height = actual.getHeight();
+		BufferedImage result = new BufferedImage(width, height, actual.getColorModel().hasAlpha() ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+		Graphics2D g = result.createGraphics();
+		try {
+			g.drawImage(actual, 0, 0, null);
+			ExclusionMask.Spans spans = spans(width, height);
+			int[] expectedRow = new int[width];
+			int[] actualRow = new int[width];
+			int minX = width, minY = height, maxX = -1, maxY = -1;
+			for (int y = 0; y < height; y++) {
+				expected.getRGB(0, y, width, 1, expectedRow, 0, width);
+				actual.getRGB(0, y, width, 1, actualRow, 0, width);
+				int[] row = spans.row(y);
+				for (int span = 0; span < row.length; span += 2) {
+					for (int x = row[span]; x < row[span + 1]; x++) {
+						if (((expectedRow[x] ^ actualRow[x]) & compareMask) != 0 && isDifferent(expectedRow[x], actualRow[x])) {
+							result.setRGB(x, y, DIFFERENCE_COLOUR.getRGB());
+							minX = Math.min(minX, x);
+							maxX = Math.max(maxX, x);
+							minY = Math.min(minY, y);
+							maxY = Math.max(maxY, y);
+						}
+					}
+				}
+			}
+			g.setColor(EXCLUSION_COLOUR);
+			exclusions.exclusions().forEach(g::draw);
+			if (maxX >= 0) {
+				g.setColor(DIFFERENCE_COLOUR);
+				g.drawRect(minX - 2, minY - 2, maxX - minX + 4, maxY - minY + 4);
+			}
+		} finally {
+			g.dispose();
+		}
+		return result;
+	}
+
+	/**
+	 * Counts the pixels that differ between two images of the same size.
+	 *
+	 * @param expected
+	 * 	the expected image
+	 * @param actual
+	 * 	the actual image
+	 * @param limit
+	 * 	counting stops as soon as the count exceeds this limit
+	 * @return the number of differing pixels (or limit + 1 if there are more than limit)
+	 */
+	/*package*/ long countDifferentPixels(BufferedImage expected, BufferedImage actual, long limit) {
+		return countDifferentPixels(expected, actual, spans(expected.getWidth(), expected.getHeight()), 0, limit);
+	}
+
+	/**
+	 * Counts the pixels that differ between two bands of rows (of the same size) taken from larger images.
+	 *
+	 * @param expected
+	 * 	band of the expected image
+	 * @param actual
+	 * 	band of the actual image
+	 * @param spans
+	 * 	pixels that are compared in the whole images (see {@link #spans(int, int)})
+	 * @param firstRow
+	 * 	row of the whole images that is the first row of the bands
+	 * @param limit
+	 * 	counting stops as soon as the count exceeds this limit
+	 * @return the number of differing pixels (or limit + 1 if there are more than limit)
+	 */
+	/*package*/ long countDifferentPixels(BufferedImage expected, BufferedImage actual, ExclusionMask.Spans spans, int firstRow, long limit) {
+		Layout layout = Layout.of(expected, actual);
+		int height = expected.getHeight();
+		if (pool == null || height < 2 * BAND_HEIGHT) {
+			return countDifferentPixels(layout, expected, actual, spans, firstRow, 0, height, limit);
+		}
+		AtomicLong count = new AtomicLong();
+		pool.invoke(new BandComparison(layout, expected, actual, spans, firstRow, 0, height, limit, count));
+		return count.get();
+	}
+
+	// Rows fromRow to toRow of the images are compared using the spans of rows firstRow + fromRow to firstRow + toRow.
+	private long countDifferentPixels(Layout layout, BufferedImage expected, BufferedImage actual, ExclusionMask.Spans spans, int firstRow, int fromRow, int toRow, long limit) {
+		return switch (layout) {
+			case PACKED_RGB -> countPackedRgb(expected, actual, spans, firstRow, fromRow, toRow, limit);
+			case INTERLEAVED_RGB -> countInterleavedRgb(expected, actual, spans, firstRow, fromRow, toRow, limit);
+			case OTHER -> countUsingGetRgb(expected, actual, spans, firstRow, fromRow, toRow, limit);
+		};
+	}
+
+	// Compares a range of rows, splitting it in half until it is no more than BAND_HEIGHT rows high.
+	@SuppressWarnings("serial")
+	private class BandComparison extends RecursiveAction {
+		private final Layout layout;
+		private final BufferedImage expected;
+		private final BufferedImage actual;
+		private final ExclusionMask.Spans spans;
+		private final int firstRow;
+		private final int fromRow;
+		private final int toRow;
+		private final long limit;
+		private final AtomicLong count;
+
+		private BandComparison(Layout layout, BufferedImage expected, BufferedImage actual, ExclusionMask.Spans spans, int firstRow, int fromRow, int toRow, long limit, AtomicLong count) {
+			this.layout = layout;
+			this.expected = expected;
+			this.actual = actual;
+			this.spans = spans;
+			this.firstRow = firstRow;
+			this.fromRow = fromRow;
+			this.toRow = toRow;
+			this.limit = limit;
+			this.count = count;
+		}
+
+		@Override
+		protected void compute() {
+			if (toRow - fromRow > BAND_HEIGHT) {
+				int middleRow = (fromRow + toRow) >>> 1;
+				invokeAll(new BandComparison(layout, expected, actual, spans, firstRow, fromRow, middleRow, limit, count),
+						  new BandComparison(layout, expected, actual, spans, firstRow, middleRow, toRow, limit, count));
+				return;
+			}
+			// Rows are compared one at a time so that the band stops soon after any band exceeds the limit.
+			for (int row = fromRow; row < toRow; row++) {
+				long countSoFar = count.get();
+				if (countSoFar > limit) {
+					return;
+				}
+				long rowCount = countDifferentPixels(layout, expected, actual, spans, firstRow, row, row + 1, limit - countSoFar);
+				if (rowCount > 0) {
+					count.addAndGet(rowCount);
+				}
+			}
+		}
+	}
+
+	private long countPackedRgb(BufferedImage expected, BufferedImage actual, ExclusionMask.Spans spans, int firstRow, int fromRow, int toRow, long limit) {
+		WritableRaster expectedRaster = expected.getRaster();
+		WritableRaster actualRaster = actual.getRaster();
+		int[] expectedData = ((DataBufferInt) expectedRaster.getDataBuffer()).getData();
+		int[] actualData = ((DataBufferInt) actualRaster.getDataBuffer()).getData();
+		int expectedStride = ((SinglePixelPackedSampleModel) expectedRaster.getSampleModel()).getScanlineStride();
+		int actualStride = ((SinglePixelPackedSampleModel) actualRaster.getSampleModel()).getScanlineStride();
+		int expectedOrigin = packedOrigin(expectedRaster);
+		int actualOrigin = packedOrigin(actualRaster);
+		// Images without alpha may have anything in their top 8 bits, so they are made opaque before being compared.
+		int expectedOpaque = expected.getColorModel().hasAlpha() ? 0 : OPAQUE;
+		int actualOpaque = actual.getColorModel().hasAlpha() ? 0 : OPAQUE;
+		long count = 0;
+		for (int y = fromRow; y < toRow; y++) {
+			int e = expectedOrigin + y * expectedStride;
+			int a = actualOrigin + y * actualStride;
+			int[] row = spans.row(firstRow + y);
+			for (int span = 0; span < row.length; span += 2) {
+				int x = row[span];
+				int end = row[span + 1];
+				while (x < end) {
+					int mismatch = Arrays.mismatch(expectedData, e + x, e + end, actualData, a + x, a + end);
+					if (mismatch < 0) {
+						break;
+					}
+					x += mismatch;
+					// The raw values may only differ in their alpha (or unused) bits.
+					int expectedArgb = expectedData[e + x] | expectedOpaque;
+					int actualArgb = actualData[a + x] | actualOpaque;
+					if (((expectedArgb ^ actualArgb) & compareMask) != 0 && isDifferent(expectedArgb, actualArgb) && ++count > limit) {
+						return count;
+					}
+					x++;
+				}
+			}
+		}
+		return count;
+	}
+
+	private long countInterleavedRgb(BufferedImage expected, BufferedImage actual, ExclusionMask.Spans spans, int firstRow, int fromRow, int toRow, long limit) {
+		WritableRaster expectedRaster = expected.getRaster();
+		WritableRaster actualRaster = actual.getRaster();
+		byte[] expectedData = ((DataBufferByte) expectedRaster.getDataBuffer()).getData();
+		byte[] actualData = ((DataBufferByte) actualRaster.getDataBuffer()).getData();
+		PixelInterleavedSampleModel expectedModel = (PixelInterleavedSampleModel) expectedRaster.getSampleModel();
+		PixelInterleavedSampleModel actualModel = (PixelInterleavedSampleModel) actualRaster.getSampleModel();
+		int expectedStride = expectedModel.getScanlineStride();
+		int actualStride = actualModel.getScanlineStride();
+		int expectedPixelStride = expectedModel.getPixelStride();
+		int actualPixelStride = actualModel.getPixelStride();
+		int expectedOrigin = interleavedOrigin(expectedRaster);
+		int actualOrigin = interleavedOrigin(actualRaster);
+		int[] expectedBands = expectedModel.getBandOffsets();
+		int[] actualBands = actualModel.getBandOffsets();
+		int er = expectedBands[0], eg = expectedBands[1], eb = expectedBands[2];
+		int ar = actualBands[0], ag = actualBands[1], ab = actualBands[2];
+		// The alpha offset is -1 if the image has no alpha (or alpha is being ignored).
+		int ea = !tolerance.ignoreAlpha() && expectedBands.length > 3 ? expectedBands[3] : -1;
+		int aa = !tolerance.ignoreAlpha() && actualBands.length > 3 ? actualBands[3] : -1;
+		if (expectedPixelStride == actualPixelStride && Arrays.equals(expectedBands, actualBands)) {
+			return countSameInterleavedRgb(expectedData, actualData, expectedOrigin, actualOrigin, expectedStride, actualStride, expectedPixelStride, er, eg, eb, ea, spans, firstRow, fromRow, toRow, limit);
+		}
+		long count = 0;
+		for (int y = fromRow; y < toRow; y++) {
+			int[] row = spans.row(firstRow + y);
+			for (int span = 0; span < row.length; span += 2) {
+				int e = expectedOrigin + y * expectedStride + row[span] * expectedPixelStride;
+				int a = actualOrigin + y * actualStride + row[span] * actualPixelStride;
+				for (int x = row[span]; x < row[span + 1]; x++, e += expectedPixelStride, a += actualPixelStride) {
+					int redDiff = (expectedData[e + er] & 0xFF) - (actualData[a + ar] & 0xFF);
+					int greenDiff = (expectedData[e + eg] & 0xFF) - (actualData[a + ag] & 0xFF);
+					int blueDiff = (expectedData[e + eb] & 0xFF) - (actualData[a + ab] & 0xFF);
+					int alphaDiff = alpha(expectedData, e, ea) - alpha(actualData, a, aa);
+					if ((redDiff | greenDiff | blueDiff | alphaDiff) != 0 && isDifferent(redDiff, greenDiff, blueDiff, alphaDiff) && ++count > limit) {
+						return count;
+					}
+				}
+			}
+		}
+		return count;
+	}
+
+	// Both images have the same interleaving, so whole rows can be scanned for raw differences.
+	private long countSameInterleavedRgb(byte[] expectedData, byte[] actualData, int expectedOrigin, int actualOrigin, int expectedStride, int actualStride,
+										 int pixelStride, int r, int g, int b, int alpha, ExclusionMask.Spans spans, int firstRow, int fromRow, int toRow, long limit) {
+		long count = 0;
+		for (int y = fromRow; y < toRow; y++) {
+			int e = expectedOrigin + y * expectedStride;
+			int a = actualOrigin + y * actualStride;
+			int[] row = spans.row(firstRow + y);
+			for (int span = 0; span < row.length; span += 2) {
+				int offset = row[span] * pixelStride;
+				int end = row[span + 1] * pixelStride;
+				while (offset < end) {
+					int mismatch = Arrays.mismatch(expectedData, e + offset, e + end, actualData, a + offset, a + end);
+					if (mismatch < 0) {
+						break;
+					}
+					int pixel = (offset + mismatch) / pixelStride * pixelStride;	// Start of the pixel that contains the mismatch
+					int redDiff = (expectedData[e + pixel + r] & 0xFF) - (actualData[a + pixel + r] & 0xFF);
+					int greenDiff = (expectedData[e + pixel + g] & 0xFF) - (actualData[a + pixel + g] & 0xFF);
+					int blueDiff = (expectedData[e + pixel + b] & 0xFF) - (actualData[a + pixel + b] & 0xFF);
+					int alphaDiff = alpha(expectedData, e + pixel, alpha) - alpha(actualData, a + pixel, alpha);
+					if (isDifferent(redDiff, greenDiff, blueDiff, alphaDiff) && ++count > limit) {
+						return count;
+					}
+					offset = pixel + pixelStride;
+				}
+			}
+		}
+		return count;
+	}
+
+	private long countUsingGetRgb(BufferedImage expected, BufferedImage actual, ExclusionMask.Spans spans, int firstRow, int fromRow, int toRow, long limit) {
+		long count = 0;
+		for (int y = fromRow; y < toRow; y++) {
+			int[] row = spans.row(firstRow + y);
+			for (int span = 0; span < row.length; span += 2) {
+				for (int x = row[span]; x < row[span + 1]; x++) {
+					int expectedArgb = expected.getRGB(x, y);
+					int actualArgb = actual.getRGB(x, y);
+					if (((expectedArgb ^ actualArgb) & compareMask) != 0 && isDifferent(expectedArgb, actualArgb) && ++count > limit) {
+						return count;
+					}
+				}
+			}
+		}
+		return count;
+	}
+
+	private boolean isDifferent(int expectedArgb, int actualArgb) {
+		return isDifferent(((expectedArgb >> 16) & 0xFF) - ((actualArgb >> 16) & 0xFF),
+						   ((expectedArgb >> 8) & 0xFF) - ((actualArgb >> 8) & 0xFF),
+						   (expectedArgb & 0xFF) - (actualArgb & 0xFF),
+						   tolerance.ignoreAlpha() ? 0 : (expectedArgb >>> 24) - (actualArgb >>> 24));
+	}
+
+	// Determines whether two pixels differ given the differences between their channels (alphaDiff is 0 if alpha is ignored).
+	private boolean isDifferent(int redDiff, int greenDiff, int blueDiff, int alphaDiff) {
+		int maxChannelDelta = tolerance.maxChannelDelta();
+		if (maxChannelDelta >= 0) {
+			return Math.abs(redDiff) > maxChannelDelta || Math.abs(greenDiff) > maxChannelDelta || Math.abs(blueDiff) > maxChannelDelta || Math.abs(alphaDiff) > maxChannelDelta;
+		}
+		return redDiff * redDiff + greenDiff * greenDiff + blueDiff * blueDiff + alphaDiff * alphaDiff > differenceThreshold;
+	}
+
+	// Alpha value of an interleaved pixel, where an offset of -1 means there is no alpha sample.
+	private static int alpha(byte[] data, int pixel, int alphaOffset) {
+		return alphaOffset < 0 ? 0xFF : data[pixel + alphaOffset] & 0xFF;
+	}
+
+	// Index of pixel (0,0) in the data array (non-zero for sub-images).
+	private static int packedOrigin(WritableRaster raster) {
+		SinglePixelPackedSampleModel model = (SinglePixelPackedSampleModel) raster.getSampleModel();
+		return raster.getDataBuffer().getOffset() + model.getOffset(raster.getMinX() - raster.getSampleModelTranslateX(), raster.getMinY() - raster.getSampleModelTranslateY());
+	}
+
+	// Index of the first sample of pixel (0,0) in the data array (band offsets are added separately).
+	private static int interleavedOrigin(WritableRaster raster) {
+		PixelInterleavedSampleModel model = (PixelInterleavedSampleModel) raster.getSampleModel();
+		return raster.getDataBuffer().getOffset()
+				+ (raster.getMinY() - raster.getSampleModelTranslateY()) * model.getScanlineStride()
+				+ (raster.getMinX() - raster.getSampleModelTranslateX()) * model.getPixelStride();
+	}
+
+	// How the pixels of a pair of images can be read
+	private enum Layout {
+		PACKED_RGB, INTERLEAVED_RGB, OTHER;
+
+		private static Layout of(BufferedImage expected, BufferedImage actual) {
+			if (isPackedRgb(expected) && isPackedRgb(actual)) {
+				return PACKED_RGB;
+			}
+			if (isInterleavedRgb(expected) && isInterleavedRgb(actual)) {
+				return INTERLEAVED_RGB;
+			}
+			return OTHER;
+		}
+	}
+
+	// Packed ints holding 8 bit red, green and blue values (and optionally a non-premultiplied alpha) in the usual places.
+	private static boolean isPackedRgb(BufferedImage image) {
+		WritableRaster raster = image.getRaster();
+		return raster.getDataBuffer() instanceof DataBufferInt buffer
+				&& buffer.getNumBanks() == 1
+				&& raster.getSampleModel() instanceof SinglePixelPackedSampleModel
+				&& image.getColorModel() instanceof DirectColorModel colorModel
+				&& colorModel.getColorSpace().isCS_sRGB()
+				&& !colorModel.isAlphaPremultiplied()
+				&& (!colorModel.hasAlpha() || colorModel.getAlphaMask() == OPAQUE)
+				&& colorModel.getRedMask() == 0x00FF0000
+				&& colorModel.getGreenMask() == 0x0000FF00
+				&& colorModel.getBlueMask() == 0x000000FF;
+	}
+
+	// Interleaved 8 bit sRGB samples (with an optional non-premultiplied alpha sample).
+	private static boolean isInterleavedRgb(BufferedImage image) {
+		WritableRaster raster = image.getRaster();
+		ColorModel colorModel = image.getColorModel();
+		return raster.getDataBuffer() instanceof DataBufferByte buffer
+				&& buffer.getNumBanks() == 1
+				&& raster.getSampleModel() instanceof PixelInterleavedSampleModel
+				&& colorModel instanceof ComponentColorModel
+				&& colorModel.getTransferType() == DataBuffer.TYPE_BYTE
+				&& colorModel.getColorSpace().isCS_sRGB()
+				&& colorModel.getNumColorComponents() == 3
+				&& colorModel.getPixelSize() == 8 * colorModel.getNumComponents()
+				&& !colorModel.isAlphaPremultiplied();
+	}
+}
@@ -0,0 +1,148 @@
+package com._4point.testing.matchers.aem;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.geom.Area;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.util.List;
+import java.util.function.IntPredicate;
+import java.util.stream.Collectors;
+
+import de.redsix.pdfcompare.ImageWithDimension;
+import de.redsix.pdfcompare.PageArea;
+
+/**
+ * The parts of a document that a comparison is restricted to.
+ *
+ * Regions are pdfcompare PageAreas (the same areas used for exclusions).  An area with just a page number selects the
+ * whole page, an area with coordinates selects a rectangle (in pixels) on that page and an area with coordinates but
+ * no page number selects that rectangle on every page.  Pages that are not selected are not rendered at all, and
+ * everything outside the selected rectangles is blanked out before the pages are compared.
+ */
+/*package*/ class RegionsOfInterest {
+	/**
+	 * The whole document.
+	 */
+	/*package*/ static final RegionsOfInterest ALL = new RegionsOfInterest(List.of());
+
+	private final List<PageArea> areas;
+
+	private RegionsOfInterest(List<PageArea> areas) {
+		this.areas = areas;
+	}
+
+	/**
+	 * @param areas
+	 * 	the selected pages and rectangles
+	 * @return the regions of interest
+	 */
+	/*package*/ static RegionsOfInterest of(PageArea... areas) {
+		if (areas == null || areas.length == 0) {
+			throw new IllegalArgumentException("At least one page or region must be selected.");
+		}
+		return new RegionsOfInterest(List.of(areas));
+	}
+
+	/**
+	 * @return true if this is the whole document
+	 */
+	/*package*/ boolean isAll() {
+		return areas.isEmpty();
+	}
+
+	/**
+	 * @return predicate that selects the (zero-based) indexes of the pages that contain regions of interest
+	 */
+	/*package*/ IntPredicate pages() {
+		return pageIndex -> isAll() || areas.stream().anyMatch(area->!area.hasPage() || area.getPage() == pageIndex + 1);
+	}
+
+	/**
+	 * Checks that every page selected by number exists in at least one of the documents being compared (otherwise 
+	 * the comparison would pass without comparing anything).
+	 * 
+	 * @param expectedPageCount
+	 * 	number of pages in the expected document
+	 * @param actualPageCount
+	 * 	number of pages in the actual document
+	 * @throws IllegalArgumentException if a selected page is in neither document
+	 */
+	/*package*/ void checkPagesExist(int expectedPageCount, int actualPageCount) {
+		int pageCount = Math.max(expectedPageCount, actualPageCount);
+		List<Integer> missingPages = areas.stream()
+										  .filter(area->area.hasPage() && area.getPage() > pageCount)
+										  .map(PageArea::getPage)
+										  .distinct()
+										  .toList();
+		if (!missingPages.isEmpty()) {
+			throw new IllegalArgumentException("Page(s) " + missingPages + " selected, but neither document has more than " + pageCount + " page(s).");
+		}
+	}
+
+	/**
+	 * @param pages
+	 * 	rendered pages
+	 * @return rendered pages with everything outside the regions of interest blanked out
+	 */
+	/*package*/ RenderedPages mask(RenderedPages pages) {
+		return isAll() ? pages : new Masked(pages);
+	}
+
+	@Override
+	public String toString() {
+		return isAll() ? "all pages" : areas.stream().map(PageArea::asJson).collect(Collectors.joining(", ", "[", "]"));
+	}
+
+	// Blanks out everything on the page that is not in one of the page's rectangles (pages selected as a whole are untouched).
+	private ImageWithDimension mask(ImageWithDimension page, int pageIndex) {
+		BufferedImage image = page.bufferedImage;
+		Area blanked = new Area(new Rectangle(0, 0, image.getWidth(), image.getHeight()));
+		for (PageArea area : areas) {
+			if (area.hasPage() && area.getPage() != pageIndex + 1) {
+				continue;
+			}
+			if (!area.hasCoordinates()) {
+				return page;
+			}
+			blanked.subtract(new Area(new Rectangle(area.getX1(), area.getY1(), area.getX2() - area.getX1() + 1, area.getY2() - area.getY1() + 1)));
+		}
+		Graphics2D graphics = image.createGraphics();
+		try {
+			graphics.setColor(Color.WHITE);
+			graphics.fill(blanked);
+		} finally {
+			graphics.dispose();
+		}
+		return page;
+	}
+
+	private class Masked extends RenderedPages {
+		private final RenderedPages source;
+
+		private Masked(RenderedPages source) {
+			this.source = source;
+		}
+
+		@Override
+		/*package*/ int pageCount() throws IOException {
+			return source.pageCount();
+		}
+
+		@Override
+		/*package*/ ImageWithDimension page(int pageIndex) throws IOException {
+			return mask(source.page(pageIndex), pageIndex);
+		}
+
+		@Override
+		/*package*/ List<PageFingerprint> fingerprints() throws IOException {
+			return source.fingerprints();
+		}
+
+		@Override
+		public void close() throws IOException {
+			source.close();
+		}
+	}
+}
@@ -0,0 +1,177 @@
+package com._4point.testing.matchers.aem;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.rendering.PDFRenderer;
+
+import de.redsix.pdfcompare.ImageWithDimension;
+import de.redsix.pdfcompare.PdfComparator;
+import de.redsix.pdfcompare.ResourceCacheWithLimitedImages;
+import de.redsix.pdfcompare.env.Environment;
+
+/**
+ * The pages of a PDF rendered as images, one page at a time, on demand.
+ *
+ * The underlying PDF is not parsed until a page (or the page count) is actually needed, so pages that
+ * can be retrieved from a {@link GoldPageCache} don't cost anything.
+ */
+/*package*/ abstract class RenderedPages implements Closeable {
+
+	/**
+	 * @return the number of pages in the PDF
+	 * @throws IOException if the PDF cannot be read
+	 */
+	/*package*/ abstract int pageCount() throws IOException;
+
+	/**
+	 * @param pageIndex
+	 * 	zero-based page index
+	 * @return the rendered page
+	 * @throws IOException if the PDF cannot be read or rendered
+	 */
+	/*package*/ abstract ImageWithDimension page(int pageIndex) throws IOException;
+
+	/**
+	 * @return the structural fingerprints of the pages (which requires parsing the PDF but not rendering it)
+	 * @throws IOException if the PDF cannot be read
+	 */
+	/*package*/ abstract List<PageFingerprint> fingerprints() throws IOException;
+
+	/**
+	 * Creates RenderedPages that render a PDF held in memory.
+	 *
+	 * @param pdf
+	 * 	bytes containing a complete PDF document
+	 * @param environment
+	 * 	pdfcompare environment that supplies the rendering settings
+	 * @return the RenderedPages
+	 */
+	/*package*/ static RenderedPages of(byte[] pdf, Environment environment) {
+		return new FromDocument(()->Loader.loadPDF(pdf), environment);
+	}
+
+	/**
+	 * Creates RenderedPages that render a PDF file.
+	 *
+	 * @param pdf
+	 * 	location of the PDF
+	 * @param environment
+	 * 	pdfcompare environment that supplies the rendering settings
+	 * @return the RenderedPages
+	 */
+	/*package*/ static RenderedPages of(Path pdf, Environment environment) {
+		return new FromDocument(()->Loader.loadPDF(pdf.toFile()), environment);
+	}
+
+	/**
+	 * Creates RenderedPages that retrieve pages from a gold page cache entry and only render (and then
+	 * cache) the pages that are not already there.
+	 *
+	 * @param pdf
+	 * 	location of the PDF
+	 * @param cacheEntry
+	 * 	gold page cache entry for the PDF at the environment's DPI
+	 * @param environment
+	 * 	pdfcompare environment that supplies the rendering settings
+	 * @return the RenderedPages
+	 */
+	/*package*/ static RenderedPages of(Path pdf, GoldPageCache.Entry cacheEntry, Environment environment) {
+		return new Cached(new FromDocument(()->Loader.loadPDF(pdf.toFile()), environment), cacheEntry);
+	}
+
+	@FunctionalInterface
+	private interface DocumentLoader {
+		PDDocument load() throws IOException;
+	}
+
+	private static class FromDocument extends RenderedPages {
+		private final DocumentLoader loader;
+		private final Environment environment;
+		private PDDocument doc;
+		private PDFRenderer renderer;
+
+		private FromDocument(DocumentLoader loader, Environment environment) {
+			this.loader = loader;
+			this.environment = environment;
+		}
+
+		private PDDocument document() throws IOException {
+			if (doc == null) {
+				doc = loader.load();
+				doc.setResourceCache(new ResourceCacheWithLimitedImages(environment));
+				renderer = new PDFRenderer(doc);
+			}
+			return doc;
+		}
+
+		@Override
+		/*package*/ int pageCount() throws IOException {
+			return document().getNumberOfPages();
+		}
+
+		@Override
+		/*package*/ ImageWithDimension page(int pageIndex) throws IOException {
+			return PdfComparator.renderPageAsImage(document(), renderer, pageIndex, environment);
+		}
+
+		@Override
+		/*package*/ List<PageFingerprint> fingerprints() throws IOException {
+			return PageFingerprint.of(document());
+		}
+
+		@Override
+		public void close() throws IOException {
+			if (doc != null) {
+				doc.close();
+			}
+		}
+	}
+
+	private static class Cached extends RenderedPages {
+		private final FromDocument source;
+		private final GoldPageCache.Entry cacheEntry;
+
+		private Cached(FromDocument source, GoldPageCache.Entry cacheEntry) {
+			this.source = source;
+			this.cacheEntry = cacheEntry;
+		}
+
+		@Override
+		/*package*/ int pageCount() throws IOException {
+			var cachedPageCount = cacheEntry.pageCount();
+			if (cachedPageCount.isPresent()) {
+				return cachedPageCount.getAsInt();
+			}
+			int pageCount = source.pageCount();
+			cacheEntry.storePageCount(pageCount);
+			return pageCount;
+		}
+
+		@Override
+		/*package*/ ImageWithDimension page(int pageIndex) throws IOException {
+			Optional<ImageWithDimension> cachedPage = cacheEntry.page(pageIndex);
+			if (cachedPage.isPresent()) {
+				return cachedPage.get();
+			}
+			ImageWithDimension page = source.page(pageIndex);
+			cacheEntry.storePage(pageIndex, page);
+			return page;
+		}
+
+		@Override
+		/*package*/ List<PageFingerprint> fingerprints() throws IOException {
+			return source.fingerprints();
+		}
+
+		@Override
+		public void close() throws IOException {
+			source.close();
+		}
+	}
+}
@@ -0,0 +1,210 @@
+package com._4point.testing.matchers.aem;
+
+import java.awt.image.BufferedImage;
+import java.util.Optional;
+
+/**
+ * Compares images by their structural similarity (SSIM).
+ *
+ * The SSIM of the two images' luminance is calculated for every window of windowSize x windowSize pixels, and the
+ * images match if no window's SSIM is less than the minimum similarity.  Unlike a count of differing pixels, this
+ * tolerates faint differences spread across an image (such as anti-aliasing) while catching small, concentrated ones
+ * (such as a changed character).
+ *
+ * The means, variances and covariance of each window are calculated from summed-area tables, so the cost of the
+ * comparison is linear in the number of pixels regardless of the window size.  Only the last windowSize + 1 rows of
+ * the tables are kept, so the memory used is proportional to the width of the images rather than their area.
+ */
+/*package*/ final class SsimComparator implements ImageComparator {
+	/*package*/ static final int DEFAULT_WINDOW_SIZE = 8;
+
+	private static final Optional<String> SIZE_MISMATCH = Optional.of("size does not match.");
+	// Stabilizing constants from the original SSIM paper (K1 = 0.01, K2 = 0.03, L = 255)
+	private static final double C1 = Math.pow(0.01 * 255, 2);
+	private static final double C2 = Math.pow(0.03 * 255, 2);
+
+	private final double minimumSimilarity;
+	private final int windowSize;
+
+	/**
+	 * @param minimumSimilarity
+	 * 	the lowest SSIM (greater than 0 and at most 1) allowed for any window
+	 * @param windowSize
+	 * 	width and height of the windows
+	 */
+	/*package*/ SsimComparator(double minimumSimilarity, int windowSize) {
+		if (minimumSimilarity <= 0 || minimumSimilarity > 1) {
+			throw new IllegalArgumentException("Minimum similarity must be greater than 0 and at most 1 (" + minimumSimilarity + ").");
+		}
+		if (windowSize < 2) {
+			throw new IllegalArgumentException("Window size must be at least 2 (" + windowSize + ").");
+		}
+		this.minimumSimilarity = minimumSimilarity;
+		this.windowSize = windowSize;
+	}
+
+	@Override
+	public Optional<String> compare(BufferedImage expected, BufferedImage actual) {
+		if (expected.getWidth() != actual.getWidth() || expected.getHeight() != actual.getHeight()) {
+			return SIZE_MISMATCH;
+		}
+		WindowScan scan = new WindowScan(expected, actual);
+		while (scan.next()) {
+			double similarity = scan.similarity();
+			if (similarity < minimumSimilarity) {
+				return Optional.of(String.format("image does not match (structural similarity %.3f is less than %.3f in the %dx%d pixels at %d,%d).",
+												 similarity, minimumSimilarity, scan.size, scan.size, scan.x(), scan.y()));
+			}
+		}
+		return Optional.empty();
+	}
+
+	/**
+	 * Creates a heatmap of the dissimilarity of the images.  The actual image is shown faded, with the windows
+	 * that are less similar than the minimum coloured red (the less similar, the more intense the red).
+	 */
+	@Override
+	public BufferedImage resultImage(BufferedImage expected, BufferedImage actual) {
+		if (expected.getWidth() != actual.getWidth() || expected.getHeight() != actual.getHeight()) {
+			return actual;
+		}
+		int width = actual.getWidth();
+		int height = actual.getHeight();
+		// Each window's dissimilarity is recorded at its centre.
+		float[] dissimilarity = new float[width * height];
+		WindowScan scan = new WindowScan(expected, actual);
+		int centreOffset = scan.size / 2;
+		while (scan.next()) {
+			dissimilarity[(scan.y() + centreOffset) * width + scan.x() + centreOffset] = (float) (1 - scan.similarity());
+		}
+		BufferedImage heatmap = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+		int[] row = new int[width];
+		for (int y = 0; y < height; y++) {
+			actual.getRGB(0, y, width, 1, row, 0, width);
+			for (int x = 0; x < width; x++) {
+				int faded = 128 + luminance(row[x]) / 2;
+				float heat = dissimilarity[y * width + x];
+				row[x] = heat > 1 - minimumSimilarity ? rgb(255, (int) (faded * (1 - Math.min(heat, 1))), (int) (faded * (1 - Math.min(heat, 1))))
+													  : rgb(faded, faded, faded);
+			}
+			heatmap.setRGB(0, y, width, 1, row, 0, width);
+		}
+		return heatmap;
+	}
+
+	// Visits every window position in turn (left to right, top to bottom), maintaining the summed-area tables as it goes.
+	private class WindowScan {
+		private final BufferedImage expected;
+		private final BufferedImage actual;
+		private final int width;
+		private final int height;
+		private final int size;	// The window size, which is reduced for images smaller than a window
+		private final int ringSize;
+		// Summed-area tables for the last ringSize rows: table[r][x] is the sum over all the rows up to (but not
+		// including) row r and all the columns up to (but not including) column x.
+		private final long[][] sumExpected;
+		private final long[][] sumActual;
+		private final long[][] sumExpectedSquared;
+		private final long[][] sumActualSquared;
+		private final long[][] sumProduct;
+		private final int[] expectedRow;
+		private final int[] actualRow;
+		private int bottom;	// Table row below the current window
+		private int right;	// Table column to the right of the current window
+
+		private WindowScan(BufferedImage expected, BufferedImage actual) {
+			this.expected = expected;
+			this.actual = actual;
+			this.width = expected.getWidth();
+			this.height = expected.getHeight();
+			this.size = Math.min(windowSize, Math.min(width, height));
+			this.ringSize = size + 1;
+			this.sumExpected = new long[ringSize][width + 1];
+			this.sumActual = new long[ringSize][width + 1];
+			this.sumExpectedSquared = new long[ringSize][width + 1];
+			this.sumActualSquared = new long[ringSize][width + 1];
+			this.sumProduct = new long[ringSize][width + 1];
+			this.expectedRow = new int[width];
+			this.actualRow = new int[width];
+			for (int tableRow = 1; tableRow <= size; tableRow++) {
+				addRow(tableRow);
+			}
+			this.bottom = size;
+			this.right = size - 1;
+		}
+
+		// Moves to the next window, returning false if there are no more windows.
+		private boolean next() {
+			if (size == 0) {
+				return false;
+			}
+			if (++right > width) {
+				if (bottom == height) {
+					return false;
+				}
+				addRow(++bottom);
+				right = size;
+			}
+			return true;
+		}
+
+		private int x() {
+			return right - size;
+		}
+
+		private int y() {
+			return bottom - size;
+		}
+
+		// SSIM of the current window
+		private double similarity() {
+			double n = size * size;
+			double meanExpected = windowSum(sumExpected) / n;
+			double meanActual = windowSum(sumActual) / n;
+			double varianceExpected = windowSum(sumExpectedSquared) / n - meanExpected * meanExpected;
+			double varianceActual = windowSum(sumActualSquared) / n - meanActual * meanActual;
+			double covariance = windowSum(sumProduct) / n - meanExpected * meanActual;
+			return ((2 * meanExpected * meanActual + C1) * (2 * covariance + C2))
+					/ ((meanExpected * meanExpected + meanActual * meanActual + C1) * (varianceExpected + varianceActual + C2));
+		}
+
+		private long windowSum(long[][] table) {
+			long[] bottomRow = table[bottom % ringSize];
+			long[] topRow = table[(bottom - size) % ringSize];
+			return bottomRow[right] - topRow[right] - bottomRow[right - size] + topRow[right - size];
+		}
+
+		// Calculates table row tableRow (which includes image row tableRow - 1) from the row above it.
+		private void addRow(int tableRow) {
+			int imageRow = tableRow - 1;
+			expected.getRGB(0, imageRow, width, 1, expectedRow, 0, width);
+			actual.getRGB(0, imageRow, width, 1, actualRow, 0, width);
+			int current = tableRow % ringSize;
+			int previous = (tableRow - 1) % ringSize;
+			long rowExpected = 0, rowActual = 0, rowExpectedSquared = 0, rowActualSquared = 0, rowProduct = 0;
+			for (int x = 0; x < width; x++) {
+				int e = luminance(expectedRow[x]);
+				int a = luminance(actualRow[x]);
+				rowExpected += e;
+				rowActual += a;
+				rowExpectedSquared += e * e;
+				rowActualSquared += a * a;
+				rowProduct += e * a;
+				sumExpected[current][x + 1] = sumExpected[previous][x + 1] + rowExpected;
+				sumActual[current][x + 1] = sumActual[previous][x + 1] + rowActual;
+				sumExpectedSquared[current][x + 1] = sumExpectedSquared[previous][x + 1] + rowExpectedSquared;
+				sumActualSquared[current][x + 1] = sumActualSquared[previous][x + 1] + rowActualSquared;
+				sumProduct[current][x + 1] = sumProduct[previous][x + 1] + rowProduct;
+			}
+		}
+	}
+
+	// Rec. 601 luma (0-255)
+	private static int luminance(int rgb) {
+		return (299 * ((rgb >> 16) & 0xFF) + 587 * ((rgb >> 8) & 0xFF) + 114 * (rgb & 0xFF) + 500) / 1000;
+	}
+
+	private static int rgb(int red, int green, int blue) {
+		return (red << 16) | (green << 8) | blue;
+	}
+}
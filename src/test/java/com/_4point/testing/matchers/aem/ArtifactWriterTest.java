@@ -0,0 +1,63 @@
+package com._4point.testing.matchers.aem;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+class ArtifactWriterTest {
+	private static final byte[] CONTENTS = "artifact contents".getBytes(StandardCharsets.UTF_8);
+
+	@TempDir
+	Path artifactsDir;
+
+	@ParameterizedTest
+	@ValueSource(booleans = {true, false})
+	void testWrite(boolean asynchronous) throws Exception {
+		ArtifactWriter underTest = new ArtifactWriter(asynchronous, false);
+		Path file = artifactsDir.resolve("artifact.pdf");
+		
+		assertEquals(file, underTest.write(file, os->os.write(CONTENTS)));
+		underTest.flush();
+		
+		assertArrayEquals(CONTENTS, Files.readAllBytes(file));
+	}
+
+	@Test
+	void testWriteCompressed() throws Exception {
+		ArtifactWriter underTest = new ArtifactWriter(false, true);
+		
+		Path written = underTest.write(artifactsDir.resolve("artifact.pdf"), os->os.write(CONTENTS));
+		
+		assertEquals(artifactsDir.resolve("artifact.pdf.gz"), written);
+		try (var is = new GZIPInputStream(Files.newInputStream(written))) {
+			assertArrayEquals(CONTENTS, is.readAllBytes());
+		}
+	}
+
+	@Test
+	void testFlushReportsFailures() throws Exception {
+		ArtifactWriter underTest = new ArtifactWriter(true, false);
+		
+		underTest.write(artifactsDir.resolve("artifact.pdf"), os->{ throw new IOException("Write failed"); });
+		
+		IllegalStateException ex = assertThrows(IllegalStateException.class, underTest::flush);
+		assertTrue(ex.getMessage().contains("1 comparison artifact"), "Unexpected message: " + ex.getMessage());
+		assertDoesNotThrow(underTest::flush, "Failures should only be reported once.");
+	}
+
+	@Test
+	void testSynchronousWriteFailure() {
+		ArtifactWriter underTest = new ArtifactWriter(false, false);
+		
+		assertThrows(IOException.class, ()->underTest.write(artifactsDir.resolve("artifact.pdf"), os->{ throw new IOException("Write failed"); }));
+	}
+}
@@ -0,0 +1,604 @@
+package com._4point.testing.matchers.aem;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.Polygon;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+
+import org.hamcrest.Matcher;
+import org.hamcrest.StringDescription;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import com._4point.testing.matchers.aem.BufferedImageMatcher.BufferedImageMatcherBuilder;
+
+class BufferedImageMatcherTest {
+	private static final int WIDTH = 1000;
+	private static final int HEIGHT = 1000;	// 1,000,000 pixels, so a single pixel is within the allowance but two are not.
+
+	@ParameterizedTest
+	@ValueSource(ints = {BufferedImage.TYPE_INT_RGB, BufferedImage.TYPE_INT_ARGB, BufferedImage.TYPE_3BYTE_BGR, BufferedImage.TYPE_4BYTE_ABGR, BufferedImage.TYPE_USHORT_565_RGB})
+	void testIdenticalImages(int imageType) {
+		assertThat(image(imageType), BufferedImageMatcher.isSameAs(image(imageType)));
+	}
+
+	@ParameterizedTest
+	@ValueSource(ints = {BufferedImage.TYPE_INT_RGB, BufferedImage.TYPE_INT_ARGB, BufferedImage.TYPE_3BYTE_BGR, BufferedImage.TYPE_4BYTE_ABGR, BufferedImage.TYPE_USHORT_565_RGB})
+	void testDifferentImages(int imageType) {
+		BufferedImage actual = image(imageType);
+		actual.setRGB(10, 10, Color.BLACK.getRGB());
+		actual.setRGB(20, 20, Color.BLACK.getRGB());
+		assertMismatch(image(imageType), actual, "image does not match.");
+	}
+
+	@ParameterizedTest
+	@ValueSource(ints = {BufferedImage.TYPE_INT_RGB, BufferedImage.TYPE_3BYTE_BGR})
+	void testSinglePixelDifference_IsAllowed(int imageType) {
+		BufferedImage actual = image(imageType);
+		actual.setRGB(10, 10, Color.BLACK.getRGB());
+		assertThat(actual, BufferedImageMatcher.isSameAs(image(imageType)));
+	}
+
+	@Test
+	void testDifferencesWithinPixelTolerance_AreIgnored() {
+		BufferedImage actual = image(BufferedImage.TYPE_INT_RGB);
+		for (int x = 0; x < WIDTH; x++) {
+			actual.setRGB(x, 0, shade(actual.getRGB(x, 0), 20));	// Every pixel in the row differs, but only slightly.
+		}
+		assertThat(actual, BufferedImageMatcher.isSameAs(image(BufferedImage.TYPE_INT_RGB)));
+	}
+
+	@ParameterizedTest
+	@ValueSource(ints = {BufferedImage.TYPE_INT_ARGB, BufferedImage.TYPE_4BYTE_ABGR})
+	void testAlphaOnlyDifferences_AreIgnored(int imageType) {
+		BufferedImage actual = image(imageType);
+		for (int x = 0; x < WIDTH; x++) {
+			actual.setRGB(x, 0, actual.getRGB(x, 0) & 0x7FFFFFFF);	// Every pixel in the row has a different alpha.
+		}
+		assertThat(actual, BufferedImageMatcher.isSameAs(image(imageType)));
+	}
+
+	@Test
+	void testMaxChannelDelta() {
+		BufferedImage actual = image(BufferedImage.TYPE_INT_RGB);
+		for (int x = 0; x < WIDTH; x++) {
+			actual.setRGB(x, 0, shade(actual.getRGB(x, 0), 20));
+		}
+		assertThat(actual, BufferedImageMatcherBuilder.instance().maxChannelDelta(20).isSameAs(image(BufferedImage.TYPE_INT_RGB)));
+		assertMismatch(BufferedImageMatcherBuilder.instance().maxChannelDelta(19).isSameAs(image(BufferedImage.TYPE_INT_RGB)), actual, "image does not match.");
+		// Setting the pixel tolerance level replaces the channel delta.
+		assertThat(actual, BufferedImageMatcherBuilder.instance().maxChannelDelta(19).pixelToleranceLevel(0.1).isSameAs(image(BufferedImage.TYPE_INT_RGB)));
+		assertMismatch(BufferedImageMatcherBuilder.instance().pixelToleranceLevel(0.05).isSameAs(image(BufferedImage.TYPE_INT_RGB)), actual, "image does not match.");
+	}
+
+	@ParameterizedTest
+	@ValueSource(ints = {BufferedImage.TYPE_INT_RGB, BufferedImage.TYPE_3BYTE_BGR, BufferedImage.TYPE_USHORT_565_RGB})
+	void testPixelBudgets(int imageType) {
+		BufferedImage actual = image(imageType);
+		actual.setRGB(10, 10, Color.BLACK.getRGB());
+		actual.setRGB(20, 20, Color.BLACK.getRGB());
+		assertThat(actual, BufferedImageMatcherBuilder.instance().allowedDifferentPixels(2).isSameAs(image(imageType)));
+		assertMismatch(BufferedImageMatcherBuilder.instance().allowedDifferentPixels(1).isSameAs(image(imageType)), actual, "image does not match.");
+		assertThat(actual, BufferedImageMatcherBuilder.instance().allowedPercentOfDifferentPixels(0.0002).isSameAs(image(imageType)));
+		// Setting a percentage replaces the number of pixels.
+		assertMismatch(BufferedImageMatcherBuilder.instance().allowedDifferentPixels(2).allowedPercentOfDifferentPixels(0).isSameAs(image(imageType)), actual, "image does not match.");
+	}
+
+	@ParameterizedTest
+	@ValueSource(ints = {BufferedImage.TYPE_INT_ARGB, BufferedImage.TYPE_4BYTE_ABGR})
+	void testCompareAlpha(int imageType) {
+		BufferedImage actual = image(imageType);
+		actual.setRGB(10, 10, actual.getRGB(10, 10) & 0x00FFFFFF);
+		actual.setRGB(20, 20, actual.getRGB(20, 20) & 0x00FFFFFF);
+		assertMismatch(BufferedImageMatcherBuilder.instance().ignoreAlpha(false).isSameAs(image(imageType)), actual, "image does not match.");
+		// Images without alpha are opaque.
+		assertThat(image(BufferedImage.TYPE_INT_RGB), BufferedImageMatcherBuilder.instance().ignoreAlpha(false).isSameAs(image(imageType)));
+		assertMismatch(BufferedImageMatcherBuilder.instance().ignoreAlpha(false).isSameAs(image(BufferedImage.TYPE_INT_RGB)), actual, "image does not match.");
+	}
+
+	@Test
+	void testInvalidTolerances() {
+		BufferedImageMatcherBuilder builder = BufferedImageMatcherBuilder.instance();
+		assertAll(
+				()->assertThrows(IllegalArgumentException.class, ()->builder.pixelToleranceLevel(1)),
+				()->assertThrows(IllegalArgumentException.class, ()->builder.pixelToleranceLevel(-0.1)),
+				()->assertThrows(IllegalArgumentException.class, ()->builder.maxChannelDelta(-1)),
+				()->assertThrows(IllegalArgumentException.class, ()->builder.maxChannelDelta(256)),
+				()->assertThrows(IllegalArgumentException.class, ()->builder.allowedPercentOfDifferentPixels(101)),
+				()->assertThrows(IllegalArgumentException.class, ()->builder.allowedDifferentPixels(-1))
+				);
+	}
+
+	@Test
+	void testStructuralSimilarity() {
+		BufferedImageMatcherBuilder builder = BufferedImageMatcherBuilder.instance().structuralSimilarity(0.95);
+		assertThat(image(BufferedImage.TYPE_INT_RGB), builder.isSameAs(image(BufferedImage.TYPE_3BYTE_BGR)));
+
+		// Faint differences across the whole image are tolerated...
+		BufferedImage actual = image(BufferedImage.TYPE_INT_RGB);
+		for (int y = 0; y < HEIGHT; y++) {
+			for (int x = 0; x < WIDTH; x++) {
+				actual.setRGB(x, y, shade(actual.getRGB(x, y), 5));
+			}
+		}
+		assertThat(actual, builder.isSameAs(image(BufferedImage.TYPE_INT_RGB)));
+		assertMismatch(BufferedImageMatcherBuilder.instance().maxChannelDelta(2).isSameAs(image(BufferedImage.TYPE_INT_RGB)), actual, "image does not match.");
+
+		// ...but a small concentrated difference is not.
+		drawSpeck(actual, 500, 500);
+		Matcher<BufferedImage> matcher = builder.isSameAs(image(BufferedImage.TYPE_INT_RGB));
+		assertFalse(matcher.matches(actual));
+		StringDescription description = new StringDescription();
+		matcher.describeMismatch(actual, description);
+		assertThat(description.toString(), allOf(startsWith("image does not match (structural similarity"), containsString("8x8 pixels")));
+
+		assertMismatch(builder.isSameAs(image(BufferedImage.TYPE_INT_RGB)), new BufferedImage(WIDTH + 1, HEIGHT, BufferedImage.TYPE_INT_RGB), "size does not match.");
+	}
+
+	@Test
+	void testStructuralSimilarity_Heatmap() {
+		BufferedImage actual = image(BufferedImage.TYPE_INT_RGB);
+		drawSpeck(actual, 500, 500);
+		List<BufferedImage> results = new ArrayList<>();
+		BufferedImageMatcherBuilder builder = BufferedImageMatcherBuilder.instance().structuralSimilarity(0.95, 16);
+
+		assertThat(image(BufferedImage.TYPE_INT_RGB), builder.isSameAs(image(BufferedImage.TYPE_INT_RGB), results::add));
+		assertTrue(results.isEmpty(), "Heatmap should not be produced when the images match.");
+
+		assertFalse(builder.isSameAs(image(BufferedImage.TYPE_INT_RGB), results::add).matches(actual));
+		assertThat(results, hasSize(1));
+		BufferedImage heatmap = results.get(0);
+		assertEquals(WIDTH, heatmap.getWidth());
+		assertEquals(HEIGHT, heatmap.getHeight());
+		Color hot = new Color(heatmap.getRGB(501, 501));
+		Color cold = new Color(heatmap.getRGB(100, 100));
+		assertAll(
+				()->assertEquals(255, hot.getRed()),
+				()->assertThat(hot.getGreen(), lessThan(255)),
+				()->assertEquals(cold.getRed(), cold.getGreen())
+				);
+	}
+
+	@Test
+	void testStructuralSimilarity_InvalidArguments() {
+		BufferedImageMatcherBuilder builder = BufferedImageMatcherBuilder.instance();
+		assertAll(
+				()->assertThrows(IllegalArgumentException.class, ()->builder.structuralSimilarity(0)),
+				()->assertThrows(IllegalArgumentException.class, ()->builder.structuralSimilarity(1.01)),
+				()->assertThrows(IllegalArgumentException.class, ()->builder.structuralSimilarity(0.9, 1))
+				);
+	}
+
+	@Test
+	void testBytes() throws Exception {
+		byte[] expected = png(image(BufferedImage.TYPE_INT_RGB));
+		BufferedImage different = image(BufferedImage.TYPE_INT_RGB);
+		different.setRGB(10, 10, Color.BLACK.getRGB());
+		different.setRGB(20, 20, Color.BLACK.getRGB());
+		assertAll(
+				()->assertThat(expected.clone(), BufferedImageMatcher.isSameAs(expected)),
+				()->assertThat(png(image(BufferedImage.TYPE_3BYTE_BGR)), BufferedImageMatcher.isSameAs(expected)),
+				()->assertThat(png(different), not(BufferedImageMatcher.isSameAs(expected)))
+				);
+	}
+
+	@Test
+	void testBytes_SizeMismatchFromHeader() throws Exception {
+		byte[] expected = png(image(BufferedImage.TYPE_INT_RGB));
+		// Only the start of the PNG is present, so it can't be decoded, but the header shows that the size is different.
+		byte[] truncated = Arrays.copyOf(png(image(BufferedImage.TYPE_INT_RGB, WIDTH, HEIGHT / 2)), 100);
+		Matcher<byte[]> matcher = BufferedImageMatcher.isSameAs(expected);
+		assertFalse(matcher.matches(truncated));
+		StringDescription description = new StringDescription();
+		matcher.describeMismatch(truncated, description);
+		assertEquals(" size does not match.", description.toString());
+
+		// If a result image is wanted, the image has to be decoded.
+		assertThrows(UncheckedIOException.class, ()->BufferedImageMatcher.isSameAs(expected, r->{}).matches(truncated));
+	}
+
+	@Test
+	void testStreamingComparison_Bytes() throws Exception {
+		BufferedImageMatcherBuilder builder = BufferedImageMatcherBuilder.instance().streamingComparison(100);
+		byte[] expected = png(image(BufferedImage.TYPE_INT_RGB));
+		BufferedImage actual = image(BufferedImage.TYPE_INT_RGB);
+		assertThat(png(actual), builder.isSameAs(expected));
+		actual.setRGB(10, 10, Color.BLACK.getRGB());
+		assertThat(png(actual), builder.isSameAs(expected));
+
+		// The allowance applies to the whole image, not to each band.
+		actual.setRGB(20, HEIGHT - 1, Color.BLACK.getRGB());
+		assertMismatch(builder.isSameAs(expected), png(actual), " image does not match.");
+		assertMismatch(builder.isSameAs(expected), png(image(BufferedImage.TYPE_INT_RGB, WIDTH, HEIGHT / 2)), " size does not match.");
+
+		List<byte[]> results = new ArrayList<>();
+		assertFalse(builder.isSameAs(expected, results::add).matches(png(actual)));
+		assertThat(results, hasSize(1));
+	}
+
+	@Test
+	void testStreamingComparison_StopsAtFirstMismatchedBand() throws Exception {
+		BufferedImage actual = image(BufferedImage.TYPE_INT_RGB);
+		actual.setRGB(10, 10, Color.BLACK.getRGB());
+		actual.setRGB(20, 20, Color.BLACK.getRGB());
+		byte[] actualBytes = encode(actual, "tiff");
+		// The end of the image is missing, but it is never read because the first band doesn't match.
+		byte[] truncated = Arrays.copyOf(actualBytes, actualBytes.length / 2);
+		assertMismatch(BufferedImageMatcherBuilder.instance().streamingComparison(100).isSameAs(encode(image(BufferedImage.TYPE_INT_RGB), "tiff")), truncated, " image does not match.");
+	}
+
+	@Test
+	void testStreamingComparison_Paths(@TempDir Path tempDir) throws Exception {
+		Path expected = tempDir.resolve("expected.png");
+		Path same = tempDir.resolve("same.png");
+		Path different = tempDir.resolve("different.png");
+		Path result = tempDir.resolve("result.png");
+		BufferedImage differentImage = image(BufferedImage.TYPE_INT_RGB);
+		differentImage.setRGB(10, 10, Color.BLACK.getRGB());
+		differentImage.setRGB(20, HEIGHT - 1, Color.BLACK.getRGB());
+		ImageIO.write(image(BufferedImage.TYPE_INT_RGB), "png", expected.toFile());
+		ImageIO.write(image(BufferedImage.TYPE_INT_RGB), "png", same.toFile());
+		ImageIO.write(differentImage, "png", different.toFile());
+
+		BufferedImageMatcherBuilder builder = BufferedImageMatcherBuilder.instance().streamingComparison(256);
+		assertThat(same, builder.isSameAs(expected));
+		assertMismatch(builder.isSameAs(expected, result), different, " image does not match.");
+		assertTrue(Files.exists(result), "Result image should be written.");
+		assertThrows(IllegalArgumentException.class, ()->builder.streamingComparison(0));
+	}
+
+	@Test
+	void testFrames_Bytes() throws Exception {
+		byte[] expected = frames(frame(0), frame(1), frame(2));
+		assertThat(frames(frame(0), frame(1), frame(2)), BufferedImageMatcher.isSameFramesAs(expected));
+		assertMismatch(BufferedImageMatcher.isSameFramesAs(expected), frames(frame(0), changed(frame(1)), frame(2)), " frame 1 does not match.");
+		assertMismatch(BufferedImageMatcher.isSameFramesAs(expected), frames(changed(frame(0)), frame(1), changed(frame(2))), " frames [0, 2] do not match.");
+		assertMismatch(BufferedImageMatcher.isSameFramesAs(expected), frames(frame(0), frame(1)), " number of frames does not match (expected 3 but was 2).");
+	}
+
+	@Test
+	void testFrames_Parallel() throws Exception {
+		BufferedImageMatcherBuilder builder = BufferedImageMatcherBuilder.instance().parallelComparison(2);
+		byte[] expected = frames(frame(0), frame(1), frame(2), frame(3));
+		assertThat(frames(frame(0), frame(1), frame(2), frame(3)), builder.isSameFramesAs(expected));
+		assertMismatch(builder.isSameFramesAs(expected), frames(frame(0), changed(frame(1)), frame(2), changed(frame(3))), " frames [1, 3] do not match.");
+	}
+
+	@Test
+	void testFrames_Paths(@TempDir Path tempDir) throws Exception {
+		Path expected = Files.write(tempDir.resolve("expected.tif"), frames(frame(0), frame(1)));
+		Path same = Files.write(tempDir.resolve("same.tif"), frames(frame(0), frame(1)));
+		Path different = Files.write(tempDir.resolve("different.tif"), frames(frame(0), changed(frame(1))));
+		assertThat(same, BufferedImageMatcher.isSameFramesAs(expected));
+		assertMismatch(BufferedImageMatcher.isSameFramesAs(expected), different, " frame 1 does not match.");
+		// Each pair of frames is compared with the builder's settings.
+		assertThat(different, BufferedImageMatcherBuilder.instance().allowedDifferentPixels(1).isSameFramesAs(expected));
+	}
+
+	@Test
+	void testDifferentImageTypes() {
+		assertThat(image(BufferedImage.TYPE_3BYTE_BGR), BufferedImageMatcher.isSameAs(image(BufferedImage.TYPE_INT_RGB)));
+		BufferedImage actual = image(BufferedImage.TYPE_3BYTE_BGR);
+		actual.setRGB(10, 10, Color.BLACK.getRGB());
+		actual.setRGB(20, 20, Color.BLACK.getRGB());
+		assertMismatch(image(BufferedImage.TYPE_INT_RGB), actual, "image does not match.");
+	}
+
+	@Test
+	void testSubimages() {
+		BufferedImage expected = image(BufferedImage.TYPE_INT_RGB);
+		BufferedImage actual = image(BufferedImage.TYPE_INT_RGB);
+		actual.setRGB(10, 10, Color.BLACK.getRGB());
+		actual.setRGB(20, 20, Color.BLACK.getRGB());
+		// The differences are outside the subimages.
+		assertThat(actual.getSubimage(100, 100, 500, 500), BufferedImageMatcher.isSameAs(expected.getSubimage(100, 100, 500, 500)));
+		assertMismatch(expected.getSubimage(0, 0, 500, 500), actual.getSubimage(0, 0, 500, 500), "image does not match.");
+	}
+
+	@Test
+	void testSizeMismatch() {
+		assertMismatch(image(BufferedImage.TYPE_INT_RGB), new BufferedImage(WIDTH, HEIGHT + 1, BufferedImage.TYPE_INT_RGB), "size does not match.");
+	}
+
+	@Test
+	void testResultImageWriter() {
+		BufferedImage actual = image(BufferedImage.TYPE_INT_RGB);
+		actual.setRGB(10, 10, Color.BLACK.getRGB());
+		actual.setRGB(20, 20, Color.BLACK.getRGB());
+		List<BufferedImage> results = new ArrayList<>();
+
+		assertThat(image(BufferedImage.TYPE_INT_RGB), BufferedImageMatcher.isSameAs(image(BufferedImage.TYPE_INT_RGB), results::add));
+		assertTrue(results.isEmpty(), "Result image should not be produced when the images match.");
+
+		assertFalse(BufferedImageMatcher.isSameAs(image(BufferedImage.TYPE_INT_RGB), results::add).matches(actual));
+		assertThat(results, hasSize(1));
+		assertEquals(WIDTH, results.get(0).getWidth());
+		assertNotSame(actual, results.get(0));
+
+		// Images of different sizes can't be marked up, so the actual image is the result.
+		BufferedImage differentSize = new BufferedImage(WIDTH, HEIGHT / 2, BufferedImage.TYPE_INT_RGB);
+		assertFalse(BufferedImageMatcher.isSameAs(image(BufferedImage.TYPE_INT_RGB), results::add).matches(differentSize));
+		assertThat(results, hasSize(2));
+		assertSame(differentSize, results.get(1));
+	}
+
+	@Test
+	void testResultImageWriter_Bytes() throws Exception {
+		BufferedImage actual = image(BufferedImage.TYPE_INT_RGB);
+		actual.setRGB(10, 10, Color.BLACK.getRGB());
+		actual.setRGB(20, 20, Color.BLACK.getRGB());
+		List<byte[]> results = new ArrayList<>();
+
+		assertThat(png(image(BufferedImage.TYPE_INT_RGB)), BufferedImageMatcher.isSameAs(png(image(BufferedImage.TYPE_INT_RGB)), results::add));
+		assertTrue(results.isEmpty(), "Result image should not be produced when the images match.");
+
+		// The mismatch is described as well as found, but the result is only produced once.
+		byte[] actualBytes = png(actual);
+		AssertionError error = assertThrows(AssertionError.class, ()->assertThat(actualBytes, BufferedImageMatcher.isSameAs(png(image(BufferedImage.TYPE_INT_RGB)), results::add)));
+		assertThat(error.getMessage(), containsString("image does not match."));
+		assertThat(results, hasSize(1));
+		assertEquals(WIDTH, ImageIO.read(new ByteArrayInputStream(results.get(0))).getWidth());
+	}
+
+	@Test
+	void testMatchersRememberNothingBetweenMatches(@TempDir Path tempDir) throws Exception {
+		// An image that is fixed after a mismatch matches...
+		Matcher<BufferedImage> imageMatcher = BufferedImageMatcher.isSameAs(image(BufferedImage.TYPE_INT_RGB));
+		BufferedImage actual = image(BufferedImage.TYPE_INT_RGB);
+		actual.setRGB(10, 10, Color.BLACK.getRGB());
+		actual.setRGB(20, 20, Color.BLACK.getRGB());
+		assertFalse(imageMatcher.matches(actual));
+		actual.setRGB(20, 20, image(BufferedImage.TYPE_INT_RGB).getRGB(20, 20));
+		assertTrue(imageMatcher.matches(actual));
+
+		// ...and a file that is rewritten after a match is read again.
+		Path expected = tempDir.resolve("expected.png");
+		Path out = tempDir.resolve("out.png");
+		ImageIO.write(image(BufferedImage.TYPE_INT_RGB), "png", expected.toFile());
+		ImageIO.write(image(BufferedImage.TYPE_INT_RGB), "png", out.toFile());
+		Matcher<Path> pathMatcher = BufferedImageMatcher.isSameAs(expected);
+		assertTrue(pathMatcher.matches(out));
+		ImageIO.write(new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_RGB), "png", out.toFile());
+		assertMismatch(pathMatcher, out, " image does not match.");
+	}
+
+	@ParameterizedTest
+	@ValueSource(ints = {BufferedImage.TYPE_INT_RGB, BufferedImage.TYPE_3BYTE_BGR, BufferedImage.TYPE_USHORT_565_RGB})
+	void testParallelComparison(int imageType) {
+		BufferedImageMatcherBuilder builder = BufferedImageMatcherBuilder.instance().parallelComparison(4);
+		BufferedImage actual = image(imageType);
+		assertThat(actual, builder.isSameAs(image(imageType)));
+
+		// One difference is allowed, even in parallel...
+		actual.setRGB(10, 10, Color.BLACK.getRGB());
+		assertThat(actual, builder.isSameAs(image(imageType)));
+
+		// ...but the allowance applies to the whole image, so two differences in different bands are not.
+		actual.setRGB(20, HEIGHT - 10, Color.BLACK.getRGB());
+		assertMismatch(builder.isSameAs(image(imageType)), actual, "image does not match.");
+	}
+
+	@Test
+	void testParallelComparison_InvalidParallelism() {
+		IllegalArgumentException ex = assertThrows(IllegalArgumentException.class, ()->BufferedImageMatcherBuilder.instance().parallelComparison(0));
+		assertThat(ex.getMessage(), containsString("Parallelism"));
+	}
+
+	@ParameterizedTest
+	@ValueSource(ints = {BufferedImage.TYPE_INT_RGB, BufferedImage.TYPE_INT_ARGB, BufferedImage.TYPE_3BYTE_BGR, BufferedImage.TYPE_USHORT_565_RGB})
+	void testExclusions(int imageType) {
+		Polygon triangle = new Polygon(new int[] {500, 600, 500}, new int[] {500, 500, 600}, 3);
+		BufferedImageMatcherBuilder builder = BufferedImageMatcherBuilder.instance().excluding(new Rectangle(100, 100, 50, 50), triangle);
+		BufferedImage actual = image(imageType);
+		drawSpeck(actual, 120, 120);
+		drawSpeck(actual, 510, 510);
+		assertThat(actual, builder.isSameAs(image(imageType)));
+		// Pixels that are compared against images of a different layout are excluded too.
+		assertThat(actual, builder.isSameAs(image(BufferedImage.TYPE_4BYTE_ABGR)));
+
+		// The far corner of the triangle's bounding box is not excluded.
+		drawSpeck(actual, 590, 590);
+		assertMismatch(builder.isSameAs(image(imageType)), actual, "image does not match.");
+	}
+
+	@Test
+	void testExclusions_ResultImage() {
+		BufferedImage actual = image(BufferedImage.TYPE_INT_RGB);
+		drawSpeck(actual, 10, 10);
+		List<BufferedImage> results = new ArrayList<>();
+		assertFalse(BufferedImageMatcherBuilder.instance().excluding(new Rectangle(100, 100, 50, 50)).isSameAs(image(BufferedImage.TYPE_INT_RGB), results::add).matches(actual));
+		assertThat(results, hasSize(1));
+	}
+
+	@Test
+	void testResultImage_MarksPixelsThatDiffer() {
+		BufferedImage expected = image(BufferedImage.TYPE_INT_RGB);
+		BufferedImage actual = image(BufferedImage.TYPE_INT_RGB);
+		actual.setRGB(300, 10, shade(actual.getRGB(300, 10), 5));	// Within the tolerance
+		drawSpeck(actual, 10, 10);
+		drawSpeck(actual, 110, 110);								// Excluded
+		List<BufferedImage> results = new ArrayList<>();
+		
+		assertFalse(BufferedImageMatcherBuilder.instance().maxChannelDelta(10).excluding(new Rectangle(100, 100, 50, 50)).isSameAs(expected, results::add).matches(actual));
+		
+		BufferedImage result = results.get(0);
+		assertEquals(Color.RED.getRGB(), result.getRGB(11, 11));
+		assertEquals(actual.getRGB(300, 10), result.getRGB(300, 10));
+		assertEquals(actual.getRGB(111, 111), result.getRGB(111, 111));
+	}
+
+	@Test
+	void testExclusions_ParallelAndStreaming() throws Exception {
+		// The excluded area spans several bands, both parallel and streamed.
+		Rectangle excluded = new Rectangle(0, 50, 50, HEIGHT - 100);
+		BufferedImage actual = image(BufferedImage.TYPE_INT_RGB);
+		drawSpeck(actual, 10, 60);
+		drawSpeck(actual, 20, HEIGHT - 60);
+		assertThat(actual, BufferedImageMatcherBuilder.instance().parallelComparison(4).excluding(excluded).isSameAs(image(BufferedImage.TYPE_INT_RGB)));
+		assertThat(png(actual), BufferedImageMatcherBuilder.instance().streamingComparison(100).excluding(excluded).isSameAs(png(image(BufferedImage.TYPE_INT_RGB))));
+
+		drawSpeck(actual, 60, 60);
+		assertMismatch(BufferedImageMatcherBuilder.instance().parallelComparison(4).excluding(excluded).isSameAs(image(BufferedImage.TYPE_INT_RGB)), actual, "image does not match.");
+		assertMismatch(BufferedImageMatcherBuilder.instance().streamingComparison(100).excluding(excluded).isSameAs(png(image(BufferedImage.TYPE_INT_RGB))), png(actual), " image does not match.");
+	}
+
+	@ParameterizedTest
+	@ValueSource(ints = {BufferedImage.TYPE_INT_RGB, BufferedImage.TYPE_3BYTE_BGR, BufferedImage.TYPE_USHORT_565_RGB})
+	void testMismatchLocationHint(int imageType) {
+		BufferedImageMatcherBuilder builder = BufferedImageMatcherBuilder.instance().mismatchLocationHint();
+		BufferedImage actual = image(imageType);
+		assertThat(actual, builder.isSameAs(image(imageType)));
+		actual.setRGB(10, 10, Color.BLACK.getRGB());
+		assertThat(actual, builder.isSameAs(image(imageType)));
+
+		// The hint covers the 8 x 8 blocks that contain the differences.
+		drawSpeck(actual, 500, 500);
+		assertMismatch(builder.isSameAs(image(imageType)), actual, "image does not match (roughly in the 496x496 pixels at 8,8).");
+	}
+
+	@Test
+	void testMismatchLocationHint_LargeDifference() {
+		BufferedImage actual = image(BufferedImage.TYPE_INT_RGB);
+		Graphics2D g = actual.createGraphics();
+		try {
+			g.setColor(Color.BLACK);
+			g.fillRect(WIDTH - 100, HEIGHT - 50, 100, 50);
+		} finally {
+			g.dispose();
+		}
+		assertMismatch(BufferedImageMatcherBuilder.instance().mismatchLocationHint(16).isSameAs(image(BufferedImage.TYPE_INT_RGB)), actual, "image does not match (roughly in the 104x56 pixels at 896,944).");
+		// Excluded pixels are left out of the hint too.
+		assertThat(actual, BufferedImageMatcherBuilder.instance().mismatchLocationHint(16).excluding(new Rectangle(WIDTH - 100, HEIGHT - 50, 100, 50)).isSameAs(image(BufferedImage.TYPE_INT_RGB)));
+	}
+
+	@Test
+	void testMismatchLocationHint_SwappedPixels() {
+		// The pixels' differences cancel each other out, but the block that contains them is still found.
+		BufferedImage expected = image(BufferedImage.TYPE_INT_RGB);
+		expected.setRGB(10, 10, Color.BLACK.getRGB());
+		expected.setRGB(11, 10, Color.WHITE.getRGB());
+		BufferedImage actual = image(BufferedImage.TYPE_INT_RGB);
+		actual.setRGB(10, 10, Color.WHITE.getRGB());
+		actual.setRGB(11, 10, Color.BLACK.getRGB());
+		assertMismatch(BufferedImageMatcherBuilder.instance().mismatchLocationHint().isSameAs(expected), actual, "image does not match (roughly in the 8x8 pixels at 8,8).");
+	}
+
+	@Test
+	void testMismatchLocationHint_InvalidScale() {
+		assertThrows(IllegalArgumentException.class, ()->BufferedImageMatcherBuilder.instance().mismatchLocationHint(1));
+		assertThrows(IllegalArgumentException.class, ()->BufferedImageMatcherBuilder.instance().mismatchLocationHint(257));
+	}
+
+	private static void assertMismatch(BufferedImage expected, BufferedImage actual, String expectedMessage) {
+		assertMismatch(BufferedImageMatcher.isSameAs(expected), actual, expectedMessage);
+	}
+
+	private static <T> void assertMismatch(Matcher<T> matcher, T actual, String expectedMessage) {
+		assertFalse(matcher.matches(actual));
+		StringDescription description = new StringDescription();
+		matcher.describeMismatch(actual, description);
+		assertEquals(expectedMessage, description.toString());
+	}
+
+	// A colourful image, so that every channel of every pixel is exercised.
+	private static BufferedImage image(int imageType) {
+		return image(imageType, WIDTH, HEIGHT);
+	}
+
+	private static BufferedImage image(int imageType, int width, int height) {
+		BufferedImage image = new BufferedImage(width, height, imageType);
+		Graphics2D g = image.createGraphics();
+		try {
+			for (int band = 0; band < 10; band++) {
+				g.setColor(new Color(Color.HSBtoRGB(band / 10f, 0.8f, 0.9f)));
+				g.fillRect(band * width / 10, 0, width / 10, height);
+			}
+			g.setColor(Color.WHITE);
+			g.fillOval(width / 4, height / 4, width / 2, height / 2);
+		} finally {
+			g.dispose();
+		}
+		return image;
+	}
+
+	private static byte[] png(BufferedImage image) throws IOException {
+		return encode(image, "png");
+	}
+
+	private static byte[] encode(BufferedImage image, String format) throws IOException {
+		ByteArrayOutputStream os = new ByteArrayOutputStream();
+		ImageIO.write(image, format, os);
+		return os.toByteArray();
+	}
+
+	// A small page that is different for each frame index
+	private static BufferedImage frame(int frameIndex) {
+		BufferedImage frame = image(BufferedImage.TYPE_INT_RGB, 200, 200);
+		drawSpeck(frame, 10 + 10 * frameIndex, 10);
+		return frame;
+	}
+
+	private static BufferedImage changed(BufferedImage frame) {
+		frame.setRGB(100, 100, Color.BLACK.getRGB());
+		return frame;
+	}
+
+	// A multi-page TIFF
+	private static byte[] frames(BufferedImage... frames) throws IOException {
+		ImageWriter writer = ImageIO.getImageWritersByFormatName("tiff").next();
+		ByteArrayOutputStream os = new ByteArrayOutputStream();
+		try (ImageOutputStream ios = ImageIO.createImageOutputStream(os)) {
+			writer.setOutput(ios);
+			writer.prepareWriteSequence(null);
+			for (BufferedImage frame : frames) {
+				writer.writeToSequence(new IIOImage(frame, null, null), null);
+			}
+			writer.endWriteSequence();
+		} finally {
+			writer.dispose();
+		}
+		return os.toByteArray();
+	}
+
+	// A small black square, like a changed character
+	private static void drawSpeck(BufferedImage image, int x, int y) {
+		Graphics2D g = image.createGraphics();
+		try {
+			g.setColor(Color.BLACK);
+			g.fillRect(x, y, 3, 3);
+		} finally {
+			g.dispose();
+		}
+	}
+
+	// Moves each channel of a colour by up to the amount given (towards the middle of the range, so it doesn't clip).
+	private static int shade(int rgb, int amount) {
+		Color color = new Color(rgb);
+		return new Color(towardsMiddle(color.getRed(), amount), towardsMiddle(color.getGreen(), amount), towardsMiddle(color.getBlue(), amount)).getRGB();
+	}
+
+	private static int towardsMiddle(int value, int amount) {
+		return value < 128 ? value + amount : value - amount;
+	}
+}
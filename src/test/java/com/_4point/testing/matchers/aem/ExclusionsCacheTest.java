@@ -0,0 +1,69 @@
+package com._4point.testing.matchers.aem;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import de.redsix.pdfcompare.Exclusions;
+import de.redsix.pdfcompare.env.DefaultEnvironment;
+import de.redsix.pdfcompare.env.Environment;
+import de.redsix.pdfcompare.env.SimpleEnvironment;
+
+class ExclusionsCacheTest {
+	private static final Environment ENVIRONMENT = DefaultEnvironment.create();
+
+	@TempDir
+	Path exclusionsDir;
+
+	private final ExclusionsCache underTest = new ExclusionsCache();
+
+	@Test
+	void testUnchangedFileIsOnlyParsedOnce() throws Exception {
+		Path exclusionsFile = Files.writeString(exclusionsDir.resolve("exclusions.conf"), "exclusions: [ { page: 2, x1: 10, y1: 20, x2: 30, y2: 40 } ]");
+		
+		Exclusions first = underTest.exclusionsFor(exclusionsFile, ENVIRONMENT);
+		Exclusions second = underTest.exclusionsFor(exclusionsFile, ENVIRONMENT);
+		
+		assertSame(first, second);
+		assertTrue(first.forPage(2).contains(15, 25));
+		assertFalse(first.forPage(1).contains(15, 25));
+	}
+
+	@Test
+	void testModifiedFileIsReparsed() throws Exception {
+		Path exclusionsFile = Files.writeString(exclusionsDir.resolve("exclusions.conf"), "exclusions: [ { page: 1, x1: 10, y1: 20, x2: 30, y2: 40 } ]");
+		Exclusions first = underTest.exclusionsFor(exclusionsFile, ENVIRONMENT);
+		
+		Files.writeString(exclusionsFile, "exclusions: [ { page: 1, x1: 100, y1: 200, x2: 300, y2: 400 } ]");
+		Files.setLastModifiedTime(exclusionsFile, FileTime.from(Instant.now().plusSeconds(10)));
+		Exclusions second = underTest.exclusionsFor(exclusionsFile, ENVIRONMENT);
+		
+		assertNotSame(first, second);
+		assertFalse(second.forPage(1).contains(15, 25));
+		assertTrue(second.forPage(1).contains(150, 250));
+	}
+
+	@Test
+	void testDifferentDpiIsParsedSeparately() throws Exception {
+		Path exclusionsFile = Files.writeString(exclusionsDir.resolve("exclusions.conf"), "exclusions: [ { page: 1, x1: 1cm, y1: 1cm, x2: 2cm, y2: 2cm } ]");
+		
+		Exclusions at300Dpi = underTest.exclusionsFor(exclusionsFile, ENVIRONMENT);
+		Exclusions at150Dpi = underTest.exclusionsFor(exclusionsFile, new SimpleEnvironment(ENVIRONMENT).setDPI(150));
+		
+		assertNotSame(at300Dpi, at150Dpi);
+		assertTrue(at300Dpi.forPage(1).contains(150, 150));
+		assertFalse(at150Dpi.forPage(1).contains(150, 150));
+	}
+
+	@Test
+	void testMissingFile() {
+		assertThrows(NoSuchFileException.class, ()->underTest.exclusionsFor(exclusionsDir.resolve("missing.conf"), ENVIRONMENT));
+	}
+}
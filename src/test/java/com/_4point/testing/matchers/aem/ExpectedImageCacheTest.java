@@ -0,0 +1,73 @@
+package com._4point.testing.matchers.aem;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+
+import javax.imageio.ImageIO;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com._4point.testing.matchers.aem.BufferedImageMatcher.CacheStatistics;
+import com.github.romankh3.image.comparison.exception.ImageNotFoundException;
+
+class ExpectedImageCacheTest {
+
+	@TempDir
+	Path imageDir;
+
+	private final ExpectedImageCache underTest = new ExpectedImageCache();
+
+	@Test
+	void testUnchangedFileIsOnlyDecodedOnce() throws Exception {
+		Path imageFile = writeImage("expected.png", Color.RED);
+
+		BufferedImage first = underTest.imageFor(imageFile);
+		BufferedImage second = underTest.imageFor(imageFile);
+
+		assertSame(first, second);
+		assertEquals(Color.RED.getRGB(), first.getRGB(0, 0));
+		assertEquals(new CacheStatistics(1, 1), underTest.statistics());
+	}
+
+	@Test
+	void testModifiedFileIsDecodedAgain() throws Exception {
+		Path imageFile = writeImage("expected.png", Color.RED);
+		BufferedImage first = underTest.imageFor(imageFile);
+
+		writeImage("expected.png", Color.BLUE);
+		Files.setLastModifiedTime(imageFile, FileTime.from(Instant.now().plusSeconds(10)));
+		BufferedImage second = underTest.imageFor(imageFile);
+
+		assertNotSame(first, second);
+		assertEquals(Color.BLUE.getRGB(), second.getRGB(0, 0));
+		assertEquals(new CacheStatistics(0, 2), underTest.statistics());
+	}
+
+	@Test
+	void testSamePathsAreShared() throws Exception {
+		Path imageFile = writeImage("expected.png", Color.RED);
+
+		assertSame(underTest.imageFor(imageFile), underTest.imageFor(imageDir.resolve("subdir").resolve("..").resolve("expected.png")));
+	}
+
+	@Test
+	void testMissingFile() {
+		assertThrows(ImageNotFoundException.class, ()->underTest.imageFor(imageDir.resolve("missing.png")));
+		assertEquals(new CacheStatistics(0, 1), underTest.statistics());
+	}
+
+	private Path writeImage(String filename, Color color) throws Exception {
+		BufferedImage image = new BufferedImage(10, 10, BufferedImage.TYPE_INT_RGB);
+		image.setRGB(0, 0, color.getRGB());
+		Path imageFile = imageDir.resolve(filename);
+		ImageIO.write(image, "png", imageFile.toFile());
+		return imageFile;
+	}
+}
@@ -0,0 +1,133 @@
+package com._4point.testing.matchers.aem;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.awt.image.BufferedImage;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import de.redsix.pdfcompare.ImageWithDimension;
+
+class GoldPageCacheTest {
+	private static final Path SAMPLE_FORM = PdfTestConstants.SAMPLE_FILES_DIR.resolve("SampleForm.pdf");
+	private static final Path SAMPLE_ARTWORK_PDF = PdfTestConstants.SAMPLE_FILES_DIR.resolve("SampleArtworkPdf.pdf");
+	private static final int DPI = 300;
+
+	@TempDir
+	Path cacheDir;
+
+	@TempDir
+	Path goldDir;
+
+	@Test
+	void testStoreAndRetrievePage() throws Exception {
+		GoldPageCache.Entry entry = new GoldPageCache(cacheDir, Long.MAX_VALUE).entryFor(SAMPLE_FORM, DPI);
+		assertTrue(entry.pageCount().isEmpty());
+		assertTrue(entry.page(0).isEmpty());
+		
+		ImageWithDimension page = testPage(0x123456);
+		entry.storePageCount(1);
+		entry.storePage(0, page);
+		
+		assertEquals(1, entry.pageCount().getAsInt());
+		ImageWithDimension cachedPage = entry.page(0).orElseThrow();
+		assertEquals(page.width, cachedPage.width);
+		assertEquals(page.height, cachedPage.height);
+		assertEquals(BufferedImage.TYPE_INT_RGB, cachedPage.bufferedImage.getType());
+		assertEquals(page.bufferedImage.getRGB(3, 2), cachedPage.bufferedImage.getRGB(3, 2));
+		assertEquals(page.bufferedImage.getRaster().getDataBuffer().getElem(0), cachedPage.bufferedImage.getRaster().getDataBuffer().getElem(0));
+	}
+
+	@Test
+	void testDifferentDpiIsDifferentEntry() throws Exception {
+		GoldPageCache underTest = new GoldPageCache(cacheDir, Long.MAX_VALUE);
+		underTest.entryFor(SAMPLE_FORM, DPI).storePage(0, testPage(0));
+		
+		assertTrue(underTest.entryFor(SAMPLE_FORM, DPI / 2).page(0).isEmpty());
+		assertTrue(underTest.entryFor(SAMPLE_FORM, DPI).page(0).isPresent(), "Entries for other DPIs should not be invalidated.");
+	}
+
+	@Test
+	void testGoldFileChangeInvalidatesEntry() throws Exception {
+		Path goldFile = goldDir.resolve("gold.pdf");
+		Files.copy(SAMPLE_FORM, goldFile);
+		GoldPageCache underTest = new GoldPageCache(cacheDir, Long.MAX_VALUE);
+		underTest.entryFor(goldFile, DPI).storePage(0, testPage(0));
+		assertEquals(1, countPages());
+		
+		Files.copy(SAMPLE_ARTWORK_PDF, goldFile, StandardCopyOption.REPLACE_EXISTING);
+		
+		assertTrue(underTest.entryFor(goldFile, DPI).page(0).isEmpty());
+		assertEquals(0, countPages(), "Pages for the old version of the gold file should have been removed.");
+	}
+
+	@Test
+	void testTrimRemovesLeastRecentlyUsedPages() throws Exception {
+		GoldPageCache unlimited = new GoldPageCache(cacheDir, Long.MAX_VALUE);
+		GoldPageCache.Entry entry = unlimited.entryFor(SAMPLE_FORM, DPI);
+		for (int i = 0; i < 3; i++) {
+			entry.storePage(i, testPage(i));
+			Thread.sleep(20);	// make sure the timestamps differ
+		}
+		entry.page(0);	// page 0 is now the most recently used
+		
+		long singlePageSize;
+		try (var files = Files.walk(cacheDir)) {
+			singlePageSize = files.filter(Files::isRegularFile).mapToLong(p->p.toFile().length()).max().orElseThrow();
+		}
+		new GoldPageCache(cacheDir, singlePageSize).trim();
+		
+		assertEquals(1, countPages());
+		assertTrue(entry.page(0).isPresent());
+	}
+
+	@Test
+	void testTrimAfterWritesExceedCap() throws Exception {
+		new GoldPageCache(cacheDir, Long.MAX_VALUE).entryFor(SAMPLE_FORM, DPI).storePage(0, testPage(0));
+		long singlePageSize;
+		try (var files = Files.walk(cacheDir)) {
+			singlePageSize = files.filter(p->p.getFileName().toString().startsWith("page-")).mapToLong(p->p.toFile().length()).max().orElseThrow();
+		}
+		GoldPageCache underTest = new GoldPageCache(cacheDir, 2 * singlePageSize);
+		underTest.trim();	// Establishes the cache's size
+		assertEquals(1, countPages());
+
+		// The pages written through the cache are counted, so it knows it has to trim again.
+		GoldPageCache.Entry entry = underTest.entryFor(SAMPLE_FORM, DPI);
+		for (int i = 1; i < 4; i++) {
+			Thread.sleep(20);	// make sure the timestamps differ
+			entry.storePage(i, testPage(i));
+		}
+		underTest.trim();
+		assertThat(countPages(), lessThan(4L));
+		assertTrue(entry.page(3).isPresent());
+	}
+
+	@Test
+	void testInvalidParameters() {
+		assertThrows(IllegalArgumentException.class, ()->new GoldPageCache(null, 1));
+		assertThrows(IllegalArgumentException.class, ()->new GoldPageCache(cacheDir, 0));
+	}
+
+	private long countPages() throws Exception {
+		try (var files = Files.walk(cacheDir)) {
+			return files.filter(p->p.getFileName().toString().startsWith("page-")).count();
+		}
+	}
+
+	private static ImageWithDimension testPage(int rgb) {
+		BufferedImage image = new BufferedImage(8, 4, BufferedImage.TYPE_INT_RGB);
+		for (int y = 0; y < image.getHeight(); y++) {
+			for (int x = 0; x < image.getWidth(); x++) {
+				image.setRGB(x, y, rgb + x + y);
+			}
+		}
+		return new ImageWithDimension(image, 612.0f, 792.0f);
+	}
+}
@@ -0,0 +1,85 @@
+package com._4point.testing.matchers.aem;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import org.hamcrest.StringDescription;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class HtmlFormMatchersTest {
+	private static final String FORM_HTML = """
+			<html>
+			<head><title>Sample Form</title></head>
+			<body>
+			<div class="guideFieldLabel"><label>First Name</label></div>
+			<div class="guideFieldLabel"><label>Last Name</label></div>
+			<div class="guideFieldLabel"><label>Email</label></div>
+			<div class="somethingElse"><label>Not a field label</label></div>
+			</body>
+			</html>
+			""";
+
+	private HtmlForm form;
+
+	@BeforeEach
+	void setUp() throws Exception {
+		form = HtmlForm.create(FORM_HTML.getBytes(StandardCharsets.UTF_8), URI.create("http://localhost/"));
+	}
+
+	@Test
+	void testHasTitle() {
+		assertThat(form, HtmlFormMatchers.hasTitle("Sample Form"));
+		assertThat(form, not(HtmlFormMatchers.hasTitle("Other Form")));
+	}
+
+	@Test
+	void testHeadOnly() throws Exception {
+		HtmlForm headOnly = HtmlForm.createHeadOnly(FORM_HTML.getBytes(StandardCharsets.UTF_8), URI.create("http://localhost/"));
+		assertThat(headOnly, HtmlFormMatchers.hasTitle("Sample Form"));
+		assertFalse(headOnly.isComplete(), "Only the head should have been parsed.");
+
+		// The body is parsed when a body-level matcher needs it.
+		assertThat(headOnly, HtmlFormMatchers.containsFieldLabels("First Name", "Last Name", "Email"));
+		assertTrue(headOnly.isComplete());
+		assertEquals(form.getFieldLabels(), headOnly.getFieldLabels());
+	}
+
+	@Test
+	void testHeadOnly_NoHead() throws Exception {
+		HtmlForm headOnly = HtmlForm.createHeadOnly("<div class=\"guideFieldLabel\"><label>Email</label></div>".getBytes(StandardCharsets.UTF_8), URI.create("http://localhost/"));
+		assertThat(headOnly, HtmlFormMatchers.containsFieldLabel("Email"));
+		assertThrows(AssertionError.class, headOnly::getTitle);
+	}
+
+	@Test
+	void testFieldLabels() {
+		assertEquals(List.of("First Name", "Last Name", "Email"), form.getFieldLabels());
+		// Each call returns a new list, so changing one doesn't change the form's labels.
+		form.getFieldLabels().clear();
+		assertEquals(List.of("First Name", "Last Name", "Email"), form.getFieldLabels());
+		assertTrue(form.hasFieldLabel("Email"));
+		assertFalse(form.hasFieldLabel("Not a field label"));
+	}
+
+	@Test
+	void testContainsFieldLabel() {
+		assertThat(form, HtmlFormMatchers.containsFieldLabel("Last Name"));
+		assertThat(form, not(HtmlFormMatchers.containsFieldLabel("Phone")));
+	}
+
+	@Test
+	void testContainsFieldLabels() {
+		assertThat(form, HtmlFormMatchers.containsFieldLabels("Email", "First Name"));
+		assertThat(form, HtmlFormMatchers.containsFieldLabels(List.of()));
+
+		StringDescription description = new StringDescription();
+		HtmlFormMatchers.containsFieldLabels("Email", "Phone", "Fax").describeMismatch(form, description);
+		assertEquals("field labels [\"Phone\", \"Fax\"] were missing", description.toString());
+	}
+}
@@ -0,0 +1,44 @@
+package com._4point.testing.matchers.aem;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+class JfrComparisonListenerTest {
+
+	@Test
+	void testEventsAreRecorded(@TempDir Path recordingDir) throws Exception {
+		PdfComparisonTimings timings = new PdfComparisonTimings(Path.of("gold.pdf"), Duration.ofMillis(30), 
+																Map.of(PdfComparisonTimings.Phase.RENDER, Duration.ofMillis(20), PdfComparisonTimings.Phase.DIFF, Duration.ofMillis(10)),
+																List.of(new PdfComparisonTimings.PageTiming(1, Duration.ofMillis(20), Duration.ofMillis(10))),
+																1, 1, 1024);
+		Path recordingFile = recordingDir.resolve("comparison.jfr");
+		try (Recording recording = new Recording()) {
+			recording.enable(JfrComparisonListener.COMPARISON_EVENT_NAME);
+			recording.enable(JfrComparisonListener.PAGE_EVENT_NAME);
+			recording.start();
+			PdfComparisonListener.jfr().comparisonCompleted(timings);
+			recording.stop();
+			recording.dump(recordingFile);
+		}
+		
+		List<RecordedEvent> events = RecordingFile.readAllEvents(recordingFile);
+		RecordedEvent comparison = events.stream().filter(e->e.getEventType().getName().equals(JfrComparisonListener.COMPARISON_EVENT_NAME)).findFirst().orElseThrow();
+		assertEquals("gold.pdf", comparison.getString("goldFile"));
+		assertEquals(Duration.ofMillis(20), comparison.getDuration("render"));
+		assertEquals(1024, comparison.getLong("peakImageBytes"));
+		RecordedEvent page = events.stream().filter(e->e.getEventType().getName().equals(JfrComparisonListener.PAGE_EVENT_NAME)).findFirst().orElseThrow();
+		assertEquals(1, page.getInt("pageNumber"));
+		assertEquals(Duration.ofMillis(10), page.getDuration("diff"));
+	}
+}
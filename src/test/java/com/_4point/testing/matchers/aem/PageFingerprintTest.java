@@ -0,0 +1,96 @@
+package com._4point.testing.matchers.aem;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.*;
+import static com._4point.testing.matchers.aem.PdfTestConstants.SAMPLE_FILES_DIR;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.function.IntPredicate;
+
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.pdmodel.graphics.form.PDFormXObject;
+import org.junit.jupiter.api.Test;
+
+class PageFingerprintTest {
+	private static final Path SAMPLE_FORM = SAMPLE_FILES_DIR.resolve("SampleForm.pdf");
+	private static final Path SAMPLE_ARTWORK_PDF = SAMPLE_FILES_DIR.resolve("SampleArtworkPdf.pdf");
+
+	@Test
+	void testSameDocumentHasSameFingerprints() throws Exception {
+		List<PageFingerprint> first = fingerprintsOf(SAMPLE_FORM);
+		List<PageFingerprint> second = fingerprintsOf(SAMPLE_FORM);
+		
+		assertEquals(first, second);
+		assertThat(first.get(0).differencesFrom(second.get(0)), is(empty()));
+		assertFalse(PageFingerprint.differingPages(first, second).test(0));
+	}
+
+	@Test
+	void testDifferentDocumentsHaveDifferentFingerprints() throws Exception {
+		List<PageFingerprint> form = fingerprintsOf(SAMPLE_FORM);
+		List<PageFingerprint> artwork = fingerprintsOf(SAMPLE_ARTWORK_PDF);
+		
+		assertThat(form.get(0).differencesFrom(artwork.get(0)), hasItems("text", "content"));
+		assertTrue(PageFingerprint.differingPages(form, artwork).test(0));
+	}
+
+	@Test
+	void testMissingPagesDiffer() throws Exception {
+		List<PageFingerprint> form = fingerprintsOf(SAMPLE_FORM);
+		IntPredicate differingPages = PageFingerprint.differingPages(form, List.of());
+		
+		assertTrue(differingPages.test(0));
+		assertTrue(differingPages.test(form.size()));
+	}
+
+	@Test
+	void testFormXObjectContentDiffers() throws Exception {
+		List<PageFingerprint> first = fingerprintsOf(pdfWithForm("0 0 100 100 re f"));
+		List<PageFingerprint> same = fingerprintsOf(pdfWithForm("0 0 100 100 re f"));
+		List<PageFingerprint> moved = fingerprintsOf(pdfWithForm("50 50 100 100 re f"));
+		
+		assertEquals(first, same);
+		assertThat(first.get(0).differencesFrom(moved.get(0)), contains("resources"));
+		assertTrue(PageFingerprint.differingPages(first, moved).test(0));
+	}
+
+	private static List<PageFingerprint> fingerprintsOf(Path pdf) throws IOException {
+		try (PDDocument doc = Loader.loadPDF(pdf.toFile())) {
+			return PageFingerprint.of(doc);
+		}
+	}
+
+	private static List<PageFingerprint> fingerprintsOf(byte[] pdf) throws IOException {
+		try (PDDocument doc = Loader.loadPDF(pdf)) {
+			return PageFingerprint.of(doc);
+		}
+	}
+
+	// A single page PDF whose (identical) page content draws a form XObject with the content provided.
+	private static byte[] pdfWithForm(String formContent) throws IOException {
+		try (PDDocument doc = new PDDocument(); ByteArrayOutputStream pdf = new ByteArrayOutputStream()) {
+			PDPage page = new PDPage();
+			doc.addPage(page);
+			PDFormXObject form = new PDFormXObject(doc);
+			form.setBBox(new PDRectangle(200, 200));
+			try (OutputStream os = form.getContentStream().createOutputStream()) {
+				os.write(formContent.getBytes(StandardCharsets.US_ASCII));
+			}
+			try (PDPageContentStream contentStream = new PDPageContentStream(doc, page)) {
+				contentStream.drawForm(form);
+			}
+			doc.save(pdf);
+			return pdf.toByteArray();
+		}
+	}
+}
@@ -0,0 +1,84 @@
+package com._4point.testing.matchers.aem;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class PassResultCacheTest {
+	private static final byte[] ACTUAL = "actual".getBytes(StandardCharsets.UTF_8);
+
+	@TempDir
+	Path cacheDir;
+
+	@Test
+	void testRecordedPassIsSeenByOtherInstances() throws Exception {
+		Path cacheFile = cacheDir.resolve("passes.log");
+		PassResultCache writer = new PassResultCache(cacheFile);
+		PassResultCache reader = new PassResultCache(cacheFile);	// e.g. in another test fork
+		String key = PassResultCache.keyFor(goldFile("gold"), ACTUAL, "", "settings");
+		
+		assertFalse(reader.isKnownPass(key));
+		writer.recordPass(key);
+		writer.recordPass(key);
+		
+		assertTrue(writer.isKnownPass(key));
+		assertTrue(reader.isKnownPass(key));
+		assertEquals(1, Files.readAllLines(cacheFile).size(), "Passes should only be recorded once.");
+	}
+
+	@Test
+	void testIncompleteEntriesAreIgnored() throws Exception {
+		Path cacheFile = cacheDir.resolve("passes.log");
+		String key = PassResultCache.keyFor(goldFile("gold"), ACTUAL, "", "settings");
+		Files.writeString(cacheFile, key + "\n" + key.substring(0, 10));
+		
+		PassResultCache underTest = new PassResultCache(cacheFile);
+		
+		assertTrue(underTest.isKnownPass(key));
+		assertFalse(underTest.isKnownPass(key.substring(0, 10)));
+	}
+
+	@Test
+	void testLogIsCompactedWhenFirstRead() throws Exception {
+		Path cacheFile = cacheDir.resolve("passes.log");
+		List<String> keys = new ArrayList<>();
+		for (int i = 0; i < 4; i++) {
+			keys.add(PassResultCache.keyFor(goldFile("gold"), ACTUAL, "", "settings " + i));
+		}
+		// Duplicates (as when several JVMs record the same pass) and more entries than the cache keeps
+		Files.writeString(cacheFile, String.join("\n", keys.get(0), keys.get(1), keys.get(1), keys.get(2), keys.get(3), keys.get(2)) + "\n");
+		
+		PassResultCache underTest = new PassResultCache(cacheFile, 3);
+		
+		assertTrue(underTest.isKnownPass(keys.get(3)));
+		assertEquals(List.of(keys.get(1), keys.get(3), keys.get(2)), Files.readAllLines(cacheFile));
+		assertFalse(new PassResultCache(cacheFile, 3).isKnownPass(keys.get(0)), "Oldest pass should have been dropped.");
+		
+		underTest.recordPass(PassResultCache.keyFor(goldFile("gold"), ACTUAL, "", "settings 4"));
+		assertEquals(4, Files.readAllLines(cacheFile).size(), "Passes should be appended after compaction.");
+	}
+
+	@Test
+	void testKeyDependsOnEverything() throws Exception {
+		Path gold = goldFile("gold");
+		String key = PassResultCache.keyFor(gold, ACTUAL, "exclusions", "settings");
+		
+		assertEquals(key, PassResultCache.keyFor(gold, ACTUAL, "exclusions", "settings"));
+		assertNotEquals(key, PassResultCache.keyFor(goldFile("other gold"), ACTUAL, "exclusions", "settings"));
+		assertNotEquals(key, PassResultCache.keyFor(gold, "other actual".getBytes(StandardCharsets.UTF_8), "exclusions", "settings"));
+		assertNotEquals(key, PassResultCache.keyFor(gold, ACTUAL, "other exclusions", "settings"));
+		assertNotEquals(key, PassResultCache.keyFor(gold, ACTUAL, "exclusions", "other settings"));
+	}
+
+	private Path goldFile(String contents) throws Exception {
+		return Files.writeString(cacheDir.resolve(contents.replace(' ', '_') + ".pdf"), contents, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
+	}
+}
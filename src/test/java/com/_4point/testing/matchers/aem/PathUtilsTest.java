@@ -58,4 +58,17 @@ class PathUtilsTest {
 		assertEquals(expectedResult, PathUtils.replaceQualifier(input, "new"));
 	}
 
+	@ParameterizedTest
+	@CsvSource(textBlock="""
+			foo.bar, 				foo_new.bar
+			parent/foo.bar, 		parent/foo_new.bar
+			foo_old.bar, 			foo_old_new.bar
+			parent/foo_old.bar, 	parent/foo_old_new.bar
+			foo_old, 				foo_old_new
+			parent/foo_old., 		parent/foo_old_new
+			""")
+	void testAddQualifier(Path input, Path expectedResult) {
+		assertEquals(expectedResult, PathUtils.addQualifier(input, "new"));
+	}
+
 }
@@ -5,14 +5,29 @@ import static org.hamcrest.Matchers.*;
 import static org.junit.jupiter.api.Assertions.*;
 import static com._4point.testing.matchers.aem.PdfTestConstants.SAMPLE_FILES_DIR;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.zip.GZIPInputStream;
 
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
 import org.hamcrest.Matcher;
 import org.junit.jupiter.api.BeforeEach;
-import org.junit.jupiter.api.Disabled;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import de.redsix.pdfcompare.PageArea;
 
 class PdfComparerTest {
 	private static final String SAMPLE_FORM_NAME = "SampleForm.pdf";
@@ -20,6 +35,9 @@ class PdfComparerTest {
 	private static final Path SAMPLE_FORM = SAMPLE_FILES_DIR.resolve(SAMPLE_FORM_NAME);
 	private static final Path SAMPLE_ARTWORK_PDF = SAMPLE_FILES_DIR.resolve(SAMPLE_ARTWORK_PDF_NAME);
 
+	private static final String EXCLUDE_PAGE_1 = "exclusions: [ { page: 1 } ]";
+	private static final String EXCLUDE_TOP_CORNER_OF_PAGE_1 = "exclusions: [ { page: 1, x1: 0, y1: 0, x2: 10, y2: 10 } ]";
+
 	@TempDir
 	Path actualResultsDir;
 	
@@ -52,39 +70,386 @@ class PdfComparerTest {
 		testForFail(Files.readAllBytes(SAMPLE_FORM), underTest.comparesEqual(SAMPLE_ARTWORK_PDF_NAME), containsString("Differences were found"));
 	}
 
-	@Disabled("Not Equals is not implemented yet.")
+	@Test
+	void testComparesEqual_GoldPageCache(@TempDir Path cacheDir) throws Exception {
+		PdfComparer cachingComparer = PdfComparer.PdfComparerBuilder.instance(SAMPLE_FILES_DIR, actualResultsDir)
+															   .goldPageCache(cacheDir, Long.MAX_VALUE)
+															   .build();
+		testForPass(Files.readAllBytes(SAMPLE_FORM), cachingComparer.comparesEqual(SAMPLE_FORM_NAME));
+		assertThat(cachedPageCount(cacheDir), greaterThan(0L));
+		// Second time around the gold pages come from the cache
+		testForPass(Files.readAllBytes(SAMPLE_FORM), cachingComparer.comparesEqual(SAMPLE_FORM_NAME));
+		testForFail(Files.readAllBytes(SAMPLE_ARTWORK_PDF), cachingComparer.comparesEqual(SAMPLE_FORM_NAME), containsString("Differences were found"));
+	}
+
+	@Test
+	void testComparesEqual_GoldPageCache_GoldFileChanged(@TempDir Path goldDir, @TempDir Path cacheDir) throws Exception {
+		Path goldFile = goldDir.resolve(SAMPLE_FORM_NAME);
+		Files.copy(SAMPLE_FORM, goldFile);
+		PdfComparer cachingComparer = PdfComparer.PdfComparerBuilder.instance(goldDir, actualResultsDir)
+															   .goldPageCache(cacheDir, Long.MAX_VALUE)
+															   .build();
+		testForPass(Files.readAllBytes(SAMPLE_FORM), cachingComparer.comparesEqual(SAMPLE_FORM_NAME));
+		
+		Files.copy(SAMPLE_ARTWORK_PDF, goldFile, StandardCopyOption.REPLACE_EXISTING);
+		
+		testForFail(Files.readAllBytes(SAMPLE_FORM), cachingComparer.comparesEqual(SAMPLE_FORM_NAME), containsString("Differences were found"));
+		testForPass(Files.readAllBytes(SAMPLE_ARTWORK_PDF), cachingComparer.comparesEqual(SAMPLE_FORM_NAME));
+	}
+
+	private static long cachedPageCount(Path cacheDir) throws IOException {
+		try (var files = Files.walk(cacheDir)) {
+			return files.filter(p->p.getFileName().toString().startsWith("page-")).count();
+		}
+	}
+
 	@Test
 	void testComparesNotEqualString_Pass() throws Exception {
-		testForPass(Files.readAllBytes(SAMPLE_FORM), underTest.comparesEqual(SAMPLE_ARTWORK_PDF_NAME));
+		testForPass(Files.readAllBytes(SAMPLE_FORM), underTest.comparesNotEqual(SAMPLE_ARTWORK_PDF_NAME));
+		assertNoArtifactsWritten();
 	}
 
-	@Disabled("Not Equals is not implemented yet.")
 	@Test
 	void testComparesNotEqualString_Fail() throws Exception {
-		testForFail(Files.readAllBytes(SAMPLE_FORM), underTest.comparesEqual(SAMPLE_FORM_NAME), containsString("Differences were found"));
+		testForFail(Files.readAllBytes(SAMPLE_FORM), underTest.comparesNotEqual(SAMPLE_FORM_NAME), containsString("no differences were found"));
+		assertNoArtifactsWritten();
 	}
 
-	@Disabled("Not Equals is not implemented yet.")
 	@Test
-	void testComparesEqualPathPath_Pass() throws Exception {
-		testForPass(Files.readAllBytes(SAMPLE_FORM), underTest.comparesEqual(SAMPLE_FORM_NAME));
+	void testComparesEqualPathPath_Pass(@TempDir Path exclusionsDir) throws Exception {
+		Path exclusionsFile = Files.writeString(exclusionsDir.resolve("exclusions.conf"), EXCLUDE_PAGE_1);
+		testForPass(Files.readAllBytes(SAMPLE_FORM), underTest.comparesEqual(Path.of(SAMPLE_ARTWORK_PDF_NAME), exclusionsFile));
 	}
 
-	@Disabled("Not Equals is not implemented yet.")
 	@Test
-	void testComparesEqualPathPath_Fail() throws Exception {
-		fail("Not yet implemented");
+	void testComparesEqualPathPath_Fail(@TempDir Path exclusionsDir) throws Exception {
+		Path exclusionsFile = Files.writeString(exclusionsDir.resolve("exclusions.conf"), EXCLUDE_TOP_CORNER_OF_PAGE_1);
+		testForFail(Files.readAllBytes(SAMPLE_FORM), underTest.comparesEqual(Path.of(SAMPLE_ARTWORK_PDF_NAME), exclusionsFile), containsString("Differences were found"));
+	}
+
+	@Test
+	void testComparesEqualPathPath_GoldPageCache(@TempDir Path exclusionsDir, @TempDir Path cacheDir) throws Exception {
+		Path exclusionsFile = Files.writeString(exclusionsDir.resolve("exclusions.conf"), EXCLUDE_PAGE_1);
+		PdfComparer cachingComparer = PdfComparer.PdfComparerBuilder.instance(SAMPLE_FILES_DIR, actualResultsDir)
+															   .goldPageCache(cacheDir, Long.MAX_VALUE)
+															   .build();
+		testForPass(Files.readAllBytes(SAMPLE_FORM), cachingComparer.comparesEqual(Path.of(SAMPLE_ARTWORK_PDF_NAME), exclusionsFile));
 	}
 	
-	@Disabled("Not Equals is not implemented yet.")
 	@Test
-	void testComparesNotEqualPathPath_Pass() throws Exception {
-		fail("Not yet implemented");
+	void testComparesNotEqualPathPath_Pass(@TempDir Path exclusionsDir) throws Exception {
+		Path exclusionsFile = Files.writeString(exclusionsDir.resolve("exclusions.conf"), EXCLUDE_TOP_CORNER_OF_PAGE_1);
+		testForPass(Files.readAllBytes(SAMPLE_FORM), underTest.comparesNotEqual(Path.of(SAMPLE_ARTWORK_PDF_NAME), exclusionsFile));
+		assertNoArtifactsWritten();
+	}
+
+	@Test
+	void testComparesNotEqualPathPath_Fail(@TempDir Path exclusionsDir) throws Exception {
+		Path exclusionsFile = Files.writeString(exclusionsDir.resolve("exclusions.conf"), EXCLUDE_PAGE_1);
+		testForFail(Files.readAllBytes(SAMPLE_FORM), underTest.comparesNotEqual(Path.of(SAMPLE_ARTWORK_PDF_NAME), exclusionsFile), containsString("no differences were found"));
+		assertNoArtifactsWritten();
+	}
+
+	@Test
+	void testComparesNotEqual_GoldPageCache(@TempDir Path cacheDir) throws Exception {
+		PdfComparer cachingComparer = PdfComparer.PdfComparerBuilder.instance(SAMPLE_FILES_DIR, actualResultsDir)
+															   .goldPageCache(cacheDir, Long.MAX_VALUE)
+															   .build();
+		testForPass(Files.readAllBytes(SAMPLE_FORM), cachingComparer.comparesNotEqual(SAMPLE_ARTWORK_PDF_NAME));
+		testForFail(Files.readAllBytes(SAMPLE_FORM), cachingComparer.comparesNotEqual(SAMPLE_FORM_NAME), containsString("no differences were found"));
+		assertNoArtifactsWritten();
+	}
+
+	@Test
+	void testComparesEqual_Structural() throws Exception {
+		PdfComparer structuralComparer = PdfComparer.PdfComparerBuilder.instance(SAMPLE_FILES_DIR, actualResultsDir)
+																  .comparisonMode(PdfComparer.ComparisonMode.STRUCTURAL)
+																  .build();
+		testForPass(Files.readAllBytes(SAMPLE_FORM), structuralComparer.comparesEqual(SAMPLE_FORM_NAME));
+		testForFail(Files.readAllBytes(SAMPLE_ARTWORK_PDF), structuralComparer.comparesEqual(SAMPLE_FORM_NAME), containsString("Differences were found"));
+	}
+
+	@Test
+	void testComparesNotEqual_Structural() throws Exception {
+		PdfComparer structuralComparer = PdfComparer.PdfComparerBuilder.instance(SAMPLE_FILES_DIR, actualResultsDir)
+																  .comparisonMode(PdfComparer.ComparisonMode.STRUCTURAL)
+																  .build();
+		testForPass(Files.readAllBytes(SAMPLE_FORM), structuralComparer.comparesNotEqual(SAMPLE_ARTWORK_PDF_NAME));
+		testForFail(Files.readAllBytes(SAMPLE_FORM), structuralComparer.comparesNotEqual(SAMPLE_FORM_NAME), containsString("no differences were found"));
+		assertNoArtifactsWritten();
+	}
+
+	@ParameterizedTest
+	@ValueSource(ints = {0, 1})
+	void testComparesEqual_CoarsePass(int sampleInterval) throws Exception {
+		PdfComparer coarseComparer = PdfComparer.PdfComparerBuilder.instance(SAMPLE_FILES_DIR, actualResultsDir)
+															  .coarsePass(30, sampleInterval)
+															  .build();
+		testForPass(Files.readAllBytes(SAMPLE_FORM), coarseComparer.comparesEqual(SAMPLE_FORM_NAME));
+		testForFail(Files.readAllBytes(SAMPLE_ARTWORK_PDF), coarseComparer.comparesEqual(SAMPLE_FORM_NAME), containsString("Differences were found"));
+	}
+
+	@Test
+	void testComparesEqualPathPath_CoarsePass(@TempDir Path exclusionsDir) throws Exception {
+		PdfComparer coarseComparer = PdfComparer.PdfComparerBuilder.instance(SAMPLE_FILES_DIR, actualResultsDir)
+															  .coarsePass(30, 0)
+															  .build();
+		Path excludePage1 = Files.writeString(exclusionsDir.resolve("page1.conf"), EXCLUDE_PAGE_1);
+		Path excludeTopCorner = Files.writeString(exclusionsDir.resolve("corner.conf"), EXCLUDE_TOP_CORNER_OF_PAGE_1);
+		testForPass(Files.readAllBytes(SAMPLE_FORM), coarseComparer.comparesEqual(Path.of(SAMPLE_ARTWORK_PDF_NAME), excludePage1));
+		testForFail(Files.readAllBytes(SAMPLE_FORM), coarseComparer.comparesEqual(Path.of(SAMPLE_ARTWORK_PDF_NAME), excludeTopCorner), containsString("Differences were found"));
+	}
+
+	@Test
+	void testComparesNotEqual_CoarsePass() throws Exception {
+		PdfComparer coarseComparer = PdfComparer.PdfComparerBuilder.instance(SAMPLE_FILES_DIR, actualResultsDir)
+															  .coarsePass(30, 0)
+															  .build();
+		testForPass(Files.readAllBytes(SAMPLE_FORM), coarseComparer.comparesNotEqual(SAMPLE_ARTWORK_PDF_NAME));
+		testForFail(Files.readAllBytes(SAMPLE_FORM), coarseComparer.comparesNotEqual(SAMPLE_FORM_NAME), containsString("no differences were found"));
+		assertNoArtifactsWritten();
+	}
+
+	@Test
+	void testCoarsePass_InvalidSettings() {
+		var builder = PdfComparer.PdfComparerBuilder.instance(SAMPLE_FILES_DIR, actualResultsDir);
+		assertThrows(IllegalArgumentException.class, ()->builder.coarsePass(0, 0));
+		assertThrows(IllegalArgumentException.class, ()->builder.coarsePass(30, -1));
+	}
+
+	@ParameterizedTest
+	@ValueSource(booleans = {true, false})
+	void testComparesEqual_SwapToDisk(boolean useGoldPageCache, @TempDir Path swapDir, @TempDir Path cacheDir) throws Exception {
+		Path swapSubDir = swapDir.resolve("swap");
+		var builder = PdfComparer.PdfComparerBuilder.instance(SAMPLE_FILES_DIR, actualResultsDir)
+													.swapToDisk(swapSubDir, 1);	// Small enough to always swap.
+		if (useGoldPageCache) {
+			builder.goldPageCache(cacheDir, Long.MAX_VALUE);
+		}
+		PdfComparer swappingComparer = builder.build();
+		testForPass(Files.readAllBytes(SAMPLE_FORM), swappingComparer.comparesEqual(SAMPLE_FORM_NAME));
+		testForFail(Files.readAllBytes(SAMPLE_ARTWORK_PDF), swappingComparer.comparesEqual(SAMPLE_FORM_NAME), containsString("Differences were found"));
+		assertTrue(Files.isDirectory(swapSubDir), "Swap directory should have been created.");
+		try (var files = Files.list(actualResultsDir)) {
+			assertTrue(files.anyMatch(p->p.getFileName().toString().startsWith("SampleForm_diff")), "Diff file should have been written.");
+		}
+	}
+
+	@Test
+	void testComparesEqual_EnvironmentSettings() throws Exception {
+		PdfComparer lowResComparer = PdfComparer.PdfComparerBuilder.instance(SAMPLE_FILES_DIR, actualResultsDir)
+															  .dpi(72)
+															  .maxImageSize(2000)
+															  .parallelProcessing(false)
+															  .build();
+		testForPass(Files.readAllBytes(SAMPLE_FORM), lowResComparer.comparesEqual(SAMPLE_FORM_NAME));
+		testForFail(Files.readAllBytes(SAMPLE_ARTWORK_PDF), lowResComparer.comparesEqual(SAMPLE_FORM_NAME), containsString("Differences were found"));
+	}
+
+	@Test
+	void testEnvironmentSettings_Invalid() {
+		var builder = PdfComparer.PdfComparerBuilder.instance(SAMPLE_FILES_DIR, actualResultsDir);
+		assertThrows(IllegalArgumentException.class, ()->builder.dpi(0));
+		assertThrows(IllegalArgumentException.class, ()->builder.maxImageSize(0));
+		assertThrows(IllegalArgumentException.class, ()->builder.swapToDisk(actualResultsDir, 0));
+		assertThrows(NullPointerException.class, ()->builder.swapToDisk(null, 1));
 	}
 
-	@Disabled("Not Equals is not implemented yet.")
 	@Test
-	void testComparesNotEqualPathPath_Fail() throws Exception {
-		fail("Not yet implemented");
+	void testComparesEqualString_Fail_ArtifactsWritten() throws Exception {
+		testForFail(Files.readAllBytes(SAMPLE_FORM), underTest.comparesEqual(SAMPLE_ARTWORK_PDF_NAME), containsString("SampleArtworkPdf_diff.pdf"));
+		assertTrue(isPdf(Files.readAllBytes(actualResultsDir.resolve("SampleArtworkPdf_diff.pdf"))), "Diff file should be a PDF.");
+		assertArrayEquals(Files.readAllBytes(SAMPLE_FORM), Files.readAllBytes(actualResultsDir.resolve("SampleArtworkPdf_result.pdf")));
+	}
+
+	@Test
+	void testComparesEqual_AsynchronousCompressedArtifacts() throws Exception {
+		PdfComparer asyncComparer = PdfComparer.PdfComparerBuilder.instance(SAMPLE_FILES_DIR, actualResultsDir)
+															 .writeArtifactsAsynchronously()
+															 .compressArtifacts()
+															 .build();
+		testForFail(Files.readAllBytes(SAMPLE_FORM), asyncComparer.comparesEqual(SAMPLE_ARTWORK_PDF_NAME), containsString("SampleArtworkPdf_diff.pdf.gz"));
+		asyncComparer.flushArtifacts();
+		assertTrue(isPdf(gunzip(actualResultsDir.resolve("SampleArtworkPdf_diff.pdf.gz"))), "Diff file should be a compressed PDF.");
+		assertArrayEquals(Files.readAllBytes(SAMPLE_FORM), gunzip(actualResultsDir.resolve("SampleArtworkPdf_result.pdf.gz")));
+	}
+
+	@Test
+	void testCompareAll(@TempDir Path actualOutputsDir) throws Exception {
+		Files.copy(SAMPLE_FORM, actualOutputsDir.resolve("SampleForm_result.pdf"));		// Matches SampleForm.pdf
+		Files.copy(SAMPLE_FORM, actualOutputsDir.resolve(SAMPLE_ARTWORK_PDF_NAME));		// Differs from SampleArtworkPdf.pdf
+		Files.copy(SAMPLE_FORM, actualOutputsDir.resolve("Unknown.pdf"));				// No gold file
+		Files.copy(SAMPLE_FORM, actualOutputsDir.resolve("SampleForm_diff.pdf"));		// Ignored
+		PdfComparer batchComparer = PdfComparer.PdfComparerBuilder.instance(SAMPLE_FILES_DIR, actualResultsDir)
+															 .batchParallelism(2)
+															 .build();
+		
+		PdfBatchReport report = batchComparer.compareAll(actualOutputsDir);
+		
+		assertEquals(3, report.results().size());
+		assertFalse(report.allMatch());
+		assertEquals(1, report.count(PdfBatchReport.Status.MATCH));
+		assertEquals(1, report.count(PdfBatchReport.Status.DIFFERENT));
+		assertEquals(1, report.count(PdfBatchReport.Status.NO_GOLD_FILE));
+		PdfBatchReport.FileResult different = report.results().get(0);
+		assertEquals(actualOutputsDir.resolve(SAMPLE_ARTWORK_PDF_NAME), different.actualFile());
+		assertEquals(PdfBatchReport.Status.DIFFERENT, different.status());
+		assertEquals(List.of(1), different.differingPages());
+		assertTrue(Files.exists(different.diffFile()), "Diff file should have been written.");
+		PdfBatchReport.FileResult match = report.results().get(1);
+		assertEquals(SAMPLE_FILES_DIR.resolve(SAMPLE_FORM_NAME), match.goldFile());
+		assertEquals(PdfBatchReport.Status.MATCH, match.status());
+		
+		String json = Files.readString(actualResultsDir.resolve("comparison-report.json"));
+		assertThat(json, allOf(containsString("\"DIFFERENT\": 1"), containsString("\"differingPages\": [1]"), containsString("\"error\": \"No gold file found.\"")));
+		String html = Files.readString(actualResultsDir.resolve("comparison-report.html"));
+		assertThat(html, containsString("<a href=\"SampleArtworkPdf_diff.pdf\">"));
+	}
+
+	@Test
+	void testCompareAll_ArtifactsNamedAfterActualFiles(@TempDir Path actualOutputsDir) throws Exception {
+		Files.copy(SAMPLE_FORM, actualOutputsDir.resolve(SAMPLE_ARTWORK_PDF_NAME));			// Both differ from SampleArtworkPdf.pdf
+		Files.copy(SAMPLE_FORM, actualOutputsDir.resolve("SampleArtworkPdf_v2.pdf"));
+		PdfComparer batchComparer = PdfComparer.PdfComparerBuilder.instance(SAMPLE_FILES_DIR, actualResultsDir).build();
+		
+		PdfBatchReport report = batchComparer.compareAll(actualOutputsDir);
+		
+		assertEquals(2, report.count(PdfBatchReport.Status.DIFFERENT));
+		assertEquals(actualResultsDir.resolve("SampleArtworkPdf_diff.pdf"), report.results().get(0).diffFile());
+		assertEquals(actualResultsDir.resolve("SampleArtworkPdf_v2_diff.pdf"), report.results().get(1).diffFile());
+		assertEquals(actualResultsDir.resolve("SampleArtworkPdf_v2_result.pdf"), report.results().get(1).resultFile());
+		assertTrue(Files.exists(report.results().get(1).diffFile()), "Diff file should have been written.");
+	}
+
+	@Test
+	void testCompareAll_Exclusions(@TempDir Path actualOutputsDir, @TempDir Path exclusionsDir) throws Exception {
+		Path exclusionsFile = Files.writeString(exclusionsDir.resolve("exclusions.conf"), EXCLUDE_PAGE_1);
+		Files.copy(SAMPLE_FORM, actualOutputsDir.resolve(SAMPLE_ARTWORK_PDF_NAME));			// Only differs on page 1
+		PdfComparer batchComparer = PdfComparer.PdfComparerBuilder.instance(SAMPLE_FILES_DIR, actualResultsDir).build();
+		
+		assertTrue(batchComparer.compareAll(actualOutputsDir, exclusionsFile).allMatch());
+	}
+
+	@Test
+	void testCompareAll_SameDirectory() {
+		PdfComparer batchComparer = PdfComparer.PdfComparerBuilder.instance(SAMPLE_FILES_DIR, actualResultsDir).build();
+		
+		IllegalArgumentException ex = assertThrows(IllegalArgumentException.class, ()->batchComparer.compareAll(actualResultsDir));
+		assertThat(ex.getMessage(), containsString("must not be the actual results directory"));
+	}
+
+	@Test
+	void testComparesEqual_PassResultCache(@TempDir Path cacheDir) throws Exception {
+		Path cacheFile = cacheDir.resolve("passes.log");
+		PdfComparer cachingComparer = PdfComparer.PdfComparerBuilder.instance(SAMPLE_FILES_DIR, actualResultsDir)
+															   .passResultCache(cacheFile)
+															   .build();
+		testForPass(Files.readAllBytes(SAMPLE_FORM), cachingComparer.comparesEqual(SAMPLE_FORM_NAME));
+		assertEquals(1, Files.readAllLines(cacheFile).size());
+		// Second time around the comparison is skipped
+		testForPass(Files.readAllBytes(SAMPLE_FORM), cachingComparer.comparesEqual(SAMPLE_FORM_NAME));
+		testForFail(Files.readAllBytes(SAMPLE_FORM), cachingComparer.comparesNotEqual(SAMPLE_FORM_NAME), containsString("no differences were found"));
+		// Failures are never cached
+		testForFail(Files.readAllBytes(SAMPLE_ARTWORK_PDF), cachingComparer.comparesEqual(SAMPLE_FORM_NAME), containsString("Differences were found"));
+		testForPass(Files.readAllBytes(SAMPLE_ARTWORK_PDF), cachingComparer.comparesNotEqual(SAMPLE_FORM_NAME));
+		assertEquals(1, Files.readAllLines(cacheFile).size());
+	}
+
+	@Test
+	void testComparesEqualIn() throws Exception {
+		Path artwork = Path.of(SAMPLE_ARTWORK_PDF_NAME);
+		testForPass(Files.readAllBytes(SAMPLE_FORM), underTest.comparesEqualIn(artwork, new PageArea(1, 0, 0, 10, 10)));
+		testForFail(Files.readAllBytes(SAMPLE_FORM), underTest.comparesEqualIn(artwork, new PageArea(1)), containsString("Differences were found"));
+		assertTrue(Files.exists(actualResultsDir.resolve("SampleArtworkPdf_diff.pdf")), "Diff file should have been written.");
+	}
+
+	@Test
+	void testComparesNotEqualIn() throws Exception {
+		Path artwork = Path.of(SAMPLE_ARTWORK_PDF_NAME);
+		testForPass(Files.readAllBytes(SAMPLE_FORM), underTest.comparesNotEqualIn(artwork, new PageArea(1)));
+		testForFail(Files.readAllBytes(SAMPLE_FORM), underTest.comparesNotEqualIn(artwork, new PageArea(1, 0, 0, 10, 10)), containsString("no differences were found"));
+		assertNoArtifactsWritten();
+	}
+
+	@Test
+	void testComparesIn_MissingPage() throws Exception {
+		byte[] form = Files.readAllBytes(SAMPLE_FORM);
+		Path artwork = Path.of(SAMPLE_ARTWORK_PDF_NAME);
+		
+		// Neither document has a page 2, so nothing would be compared.
+		IllegalArgumentException ex = assertThrows(IllegalArgumentException.class, ()->assertThat(form, underTest.comparesEqualIn(artwork, new PageArea(2))));
+		assertThat(ex.getMessage(), containsString("[2]"));
+		assertThrows(IllegalArgumentException.class, ()->assertThat(form, underTest.comparesNotEqualIn(artwork, new PageArea(1), new PageArea(2))));
+	}
+
+	@Test
+	void testComparesIn_DifferentPageCounts() throws Exception {
+		byte[] formWithExtraPage = withExtraPage(SAMPLE_FORM);
+		
+		// Only the selected pages' existence matters.
+		testForPass(formWithExtraPage, underTest.comparesEqualIn(Path.of(SAMPLE_FORM_NAME), new PageArea(1)));
+		testForFail(formWithExtraPage, underTest.comparesNotEqualIn(Path.of(SAMPLE_FORM_NAME), new PageArea(1)), containsString("no differences were found"));
+		testForPass(formWithExtraPage, underTest.comparesNotEqualIn(Path.of(SAMPLE_FORM_NAME), new PageArea(2)));
+		testForFail(formWithExtraPage, underTest.comparesEqualIn(Path.of(SAMPLE_FORM_NAME), new PageArea(2)), containsString("Differences were found"));
+	}
+
+	@Test
+	void testComparesEqualIn_NoRegions() {
+		assertThrows(IllegalArgumentException.class, ()->underTest.comparesEqualIn(SAMPLE_FORM));
+	}
+
+	@Test
+	void testComparesEqual_ComparisonListener() throws Exception {
+		List<PdfComparisonTimings> timings = new CopyOnWriteArrayList<>();
+		PdfComparer timedComparer = PdfComparer.PdfComparerBuilder.instance(SAMPLE_FILES_DIR, actualResultsDir)
+															 .comparisonListener(timings::add)
+															 .build();
+		testForFail(Files.readAllBytes(SAMPLE_FORM), timedComparer.comparesEqual(SAMPLE_ARTWORK_PDF_NAME), containsString("Differences were found"));
+		testForPass(Files.readAllBytes(SAMPLE_FORM), timedComparer.comparesNotEqual(SAMPLE_ARTWORK_PDF_NAME));
+		
+		assertEquals(2, timings.size());
+		PdfComparisonTimings comparison = timings.get(0);
+		assertEquals(SAMPLE_ARTWORK_PDF, comparison.goldFile());
+		assertEquals(1, comparison.expectedPageCount());
+		assertEquals(1, comparison.actualPageCount());
+		assertEquals(1, comparison.pages().size());
+		assertEquals(1, comparison.pages().get(0).pageNumber());
+		assertThat(comparison.peakImageBytes(), greaterThan(0L));
+		for (PdfComparisonTimings.Phase phase : List.of(PdfComparisonTimings.Phase.PARSE, PdfComparisonTimings.Phase.RENDER, PdfComparisonTimings.Phase.DIFF, PdfComparisonTimings.Phase.ARTIFACTS)) {
+			assertThat(phase.toString(), comparison.phase(phase), greaterThan(Duration.ZERO));
+		}
+		assertEquals(Duration.ZERO, comparison.phase(PdfComparisonTimings.Phase.COARSE_PASS));
+		assertEquals(comparison.pages(), comparison.slowestPages(5));
+		assertEquals(Duration.ZERO, timings.get(1).phase(PdfComparisonTimings.Phase.ARTIFACTS));
+	}
+
+	private static boolean isPdf(byte[] bytes) {
+		return new String(bytes, 0, 5, StandardCharsets.US_ASCII).equals("%PDF-");
+	}
+
+	// The PDF with a page (with a black square on it) added to the end.
+	private static byte[] withExtraPage(Path pdf) throws IOException {
+		try (PDDocument doc = Loader.loadPDF(pdf.toFile()); ByteArrayOutputStream bytes = new ByteArrayOutputStream()) {
+			PDPage page = new PDPage(doc.getPage(0).getMediaBox());
+			doc.addPage(page);
+			try (PDPageContentStream contentStream = new PDPageContentStream(doc, page)) {
+				contentStream.addRect(100, 100, 100, 100);
+				contentStream.fill();
+			}
+			doc.save(bytes);
+			return bytes.toByteArray();
+		}
+	}
+
+	private static byte[] gunzip(Path file) throws IOException {
+		try (var is = new GZIPInputStream(Files.newInputStream(file))) {
+			return is.readAllBytes();
+		}
+	}
+
+	private void assertNoArtifactsWritten() throws IOException {
+		try (var files = Files.list(actualResultsDir)) {
+			assertEquals(0, files.count(), "Nothing should be written to the actual results directory.");
+		}
 	}
 }